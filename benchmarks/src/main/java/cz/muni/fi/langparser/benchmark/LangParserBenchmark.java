@@ -0,0 +1,155 @@
+package cz.muni.fi.langparser.benchmark;
+
+import cz.muni.fi.langparser.LangParser;
+import cz.muni.fi.langparser.ParseResult;
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of {@link LangParser} for every operator and the interesting
+ * argument shapes. Run with the GC profiler to get bytes allocated per
+ * operation, either through {@link #main(String[])} or
+ * {@code java -jar target/benchmarks.jar -prof gc}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LangParserBenchmark {
+
+    /*
+     * Inputs are non-final state fields rather than literals, otherwise the
+     * JIT could treat them as constants and fold parts of the parsing away.
+     */
+    private String attributeName = "attribute";
+    private String lessThanInput = "#lt 42";
+    private String lessThanOrEqualNegativeInput = "#le -1234567890123";
+    private String greaterThanInput = "#gt 9007199254740993";
+    private String greaterThanOrEqualDateInput = "#ge 2013-04-01T12:30:00";
+    private String equalsNumberInput = "#eq 3";
+    private String equalsStringFallbackInput = "#eq ERROR";
+    private String equalsShortQuotedInput = "#eq 'connection refused'";
+    private String rangeInput = "#rng -100 100";
+    private String rangeDateInput = "#rng 2013-01-01T00:00:00Z 2013-12-31T23:59:59Z";
+    private String prefixInput = "#pref cz.muni.";
+    private String malformedInput = "#rng 10 dvanast";
+    private String unclosedQuoteInput = "#pref 'no closing quote";
+    private String malformedThrowingInput = "#lt blabla";
+    private String longQuoted;
+    private String longPrefix;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 4096) {
+            sb.append("Message template with {} placeholders and some text ");
+        }
+        longQuoted = "#eq '" + sb + "'";
+        longPrefix = "#pref " + sb.toString().replace(' ', '_');
+    }
+
+    @Benchmark
+    public Constraint<?> lessThan() throws ParseException {
+        return LangParser.parse(attributeName, lessThanInput);
+    }
+
+    @Benchmark
+    public Constraint<?> lessThanOrEqualNegative() throws ParseException {
+        return LangParser.parse(attributeName, lessThanOrEqualNegativeInput);
+    }
+
+    @Benchmark
+    public Constraint<?> greaterThan() throws ParseException {
+        return LangParser.parse(attributeName, greaterThanInput);
+    }
+
+    @Benchmark
+    public Constraint<?> greaterThanOrEqualDate() throws ParseException {
+        return LangParser.parse(attributeName, greaterThanOrEqualDateInput);
+    }
+
+    @Benchmark
+    public Constraint<?> equalsNumber() throws ParseException {
+        return LangParser.parse(attributeName, equalsNumberInput);
+    }
+
+    @Benchmark
+    public Constraint<?> equalsStringFallback() throws ParseException {
+        return LangParser.parse(attributeName, equalsStringFallbackInput);
+    }
+
+    @Benchmark
+    public Constraint<?> equalsShortQuoted() throws ParseException {
+        return LangParser.parse(attributeName, equalsShortQuotedInput);
+    }
+
+    @Benchmark
+    public Constraint<?> equalsLongQuoted() throws ParseException {
+        return LangParser.parse(attributeName, longQuoted);
+    }
+
+    @Benchmark
+    public Constraint<?> range() throws ParseException {
+        return LangParser.parse(attributeName, rangeInput);
+    }
+
+    @Benchmark
+    public Constraint<?> rangeDate() throws ParseException {
+        return LangParser.parse(attributeName, rangeDateInput);
+    }
+
+    @Benchmark
+    public Constraint<?> prefix() throws ParseException {
+        return LangParser.parse(attributeName, prefixInput);
+    }
+
+    @Benchmark
+    public Constraint<?> prefixLong() throws ParseException {
+        return LangParser.parse(attributeName, longPrefix);
+    }
+
+    @Benchmark
+    public ParseResult rejectMalformed() {
+        return LangParser.tryParse(attributeName, malformedInput);
+    }
+
+    @Benchmark
+    public ParseResult rejectUnclosedQuote() {
+        return LangParser.tryParse(attributeName, unclosedQuoteInput);
+    }
+
+    @Benchmark
+    public Object rejectMalformedThrowing() {
+        try {
+            return LangParser.parse(attributeName, malformedThrowingInput);
+        } catch (ParseException e) {
+            return e;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LangParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
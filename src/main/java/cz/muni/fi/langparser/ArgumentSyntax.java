@@ -0,0 +1,41 @@
+package cz.muni.fi.langparser;
+
+/**
+ * Arguments an operator takes, each read by one of the built-in argument
+ * parsers. See {@link OperatorRegistry}.
+ */
+public enum ArgumentSyntax {
+
+    /**
+     * A number, date or time, e.g. the argument of {@code #lt}.
+     */
+    NUMBER,
+    /**
+     * A number, date, time or String, e.g. the argument of {@code #eq}.
+     */
+    ANY,
+    /**
+     * Two numbers, dates or times of the same kind, e.g. the arguments of
+     * {@code #rng}.
+     */
+    NUMBER_RANGE,
+    /**
+     * A String, quoted or the rest of the expression without spaces, e.g.
+     * the argument of {@code #pref}.
+     */
+    STRING,
+    /**
+     * One or more integers, or one or more quoted Strings, e.g. the
+     * arguments of {@code #in}. They are read into a {@link LongSet} or a
+     * {@link StringSet}.
+     */
+    LIST,
+    /**
+     * A String like {@link #STRING}, read into a {@link Suffix}.
+     */
+    SUFFIX,
+    /**
+     * A String like {@link #STRING}, read into a {@link Substring}.
+     */
+    SUBSTRING
+}
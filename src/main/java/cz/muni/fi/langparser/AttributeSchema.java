@@ -0,0 +1,49 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import java.text.ParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Known value types of attributes. Expressions parsed against a schema read
+ * their arguments with the parser of the attribute's type right away,
+ * without first trying a number and then falling back to a String, and
+ * arguments of a different type are rejected with
+ * {@link ParseError#TYPE_MISMATCH}. Attributes that are not registered are
+ * parsed as without a schema.
+ * <p>
+ * The schema is thread-safe, attributes may be registered while other
+ * threads parse against it.
+ */
+public class AttributeSchema {
+
+    private final ConcurrentMap<String, AttributeType> types = new ConcurrentHashMap<>();
+
+    /**
+     * @throws IllegalArgumentException if the attribute is already registered
+     * with another type
+     */
+    public AttributeSchema register(String attributeName, AttributeType type) {
+        AttributeType existing = types.putIfAbsent(attributeName, type);
+        if ((existing != null) && (existing != type)) {
+            throw new IllegalArgumentException("Attribute " + attributeName + " already registered as " + existing);
+        }
+        return this;
+    }
+
+    /**
+     * @return type of the attribute or {@code null} if it is not registered
+     */
+    public AttributeType getType(String attributeName) {
+        return types.get(attributeName);
+    }
+
+    public Constraint<?> parse(String attributeName, CharSequence src) throws ParseException {
+        return LangParser.parse(this, attributeName, src, 0, src.length());
+    }
+
+    public ParseResult tryParse(String attributeName, CharSequence src) {
+        return LangParser.tryParse(this, attributeName, src, 0, src.length());
+    }
+}
@@ -0,0 +1,29 @@
+package cz.muni.fi.langparser;
+
+import java.util.Date;
+
+/**
+ * Value type of an attribute registered in an {@link AttributeSchema}.
+ * {@code #rng} on an attribute yields the range of its type.
+ */
+public enum AttributeType {
+
+    LONG(Long.class),
+    /**
+     * Integer literals are accepted and widened.
+     */
+    DOUBLE(Double.class),
+    DATE(Date.class),
+    TIME(Time.class),
+    STRING(String.class);
+
+    private final Class<?> valueType;
+
+    private AttributeType(Class<?> valueType) {
+        this.valueType = valueType;
+    }
+
+    public Class<?> getValueType() {
+        return valueType;
+    }
+}
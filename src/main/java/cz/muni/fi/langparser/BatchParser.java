@@ -0,0 +1,138 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses many (attributeName, expression) pairs at once, e.g. whole
+ * subscriptions replayed after a restart. Large batches are split across a
+ * {@link ForkJoinPool}, small ones are parsed on the calling thread.
+ * Malformed entries do not stop the batch, their errors are collected in the
+ * {@link BatchResult} next to the successfully parsed constraints.
+ */
+public class BatchParser {
+
+    /**
+     * Batches up to this size are not worth forking.
+     */
+    private static final int DEFAULT_THRESHOLD = 256;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public BatchParser() {
+        this(new ForkJoinPool());
+    }
+
+    public BatchParser(ForkJoinPool pool) {
+        this(pool, DEFAULT_THRESHOLD);
+    }
+
+    public BatchParser(ForkJoinPool pool, int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Parses a single subscription, in the iteration order of the map.
+     */
+    public BatchResult parse(Map<String, String> subscription) {
+        return parse(new ArrayList<>(subscription.entrySet()));
+    }
+
+    /**
+     * Parses the given (attributeName, expression) pairs. The result keeps
+     * the order of {@code entries}.
+     */
+    public BatchResult parse(List<? extends Map.Entry<String, String>> entries) {
+        int size = entries.size();
+        String[] attributeNames = new String[size];
+        String[] expressions = new String[size];
+
+        int i = 0;
+        for (Map.Entry<String, String> entry : entries) {
+            attributeNames[i] = entry.getKey();
+            expressions[i] = entry.getValue();
+            i++;
+        }
+
+        return parse(attributeNames, expressions);
+    }
+
+    /**
+     * Parses {@code expressions[i]} for {@code attributeNames[i]}. The result
+     * keeps the order of the arrays.
+     */
+    public BatchResult parse(String[] attributeNames, String[] expressions) {
+        if (attributeNames.length != expressions.length) {
+            throw new IllegalArgumentException("Attribute names and expressions differ in length");
+        }
+
+        BatchResult result = new BatchResult(expressions.length);
+        ParseTask task = new ParseTask(attributeNames, expressions, result, 0, expressions.length);
+
+        if (expressions.length <= threshold) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+
+        return result;
+    }
+
+    /**
+     * Stops the underlying pool, no further batches can be parsed.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private final class ParseTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] attributeNames;
+        private final String[] expressions;
+        private final BatchResult result;
+        private final int from;
+        private final int to;
+
+        ParseTask(String[] attributeNames, String[] expressions, BatchResult result, int from, int to) {
+            this.attributeNames = attributeNames;
+            this.expressions = expressions;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    parseEntry(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(attributeNames, expressions, result, from, middle),
+                        new ParseTask(attributeNames, expressions, result, middle, to));
+            }
+        }
+
+        private void parseEntry(int i) {
+            try {
+                Constraint<?> constraint = LangParser.parse(attributeNames[i], expressions[i]);
+                result.setConstraint(i, constraint);
+            } catch (ParseException | IndexOutOfBoundsException | UnsupportedOperationException e) {
+                result.setError(i, e);
+            }
+        }
+    }
+}
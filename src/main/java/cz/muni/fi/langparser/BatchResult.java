@@ -0,0 +1,79 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of a {@link BatchParser} run. Entry {@code i} holds either the
+ * constraint parsed from the {@code i}-th input or the exception it failed
+ * with.
+ */
+public class BatchResult {
+
+    private final Constraint<?>[] constraints;
+    private final Exception[] errors;
+
+    BatchResult(int size) {
+        constraints = new Constraint<?>[size];
+        errors = new Exception[size];
+    }
+
+    void setConstraint(int index, Constraint<?> constraint) {
+        constraints[index] = constraint;
+    }
+
+    void setError(int index, Exception error) {
+        errors[index] = error;
+    }
+
+    public int size() {
+        return constraints.length;
+    }
+
+    /**
+     * @return the parsed constraint or {@code null} if the entry failed
+     */
+    public Constraint<?> getConstraint(int index) {
+        return constraints[index];
+    }
+
+    /**
+     * @return the exception the entry failed with or {@code null}
+     */
+    public Exception getError(int index) {
+        return errors[index];
+    }
+
+    /**
+     * @return all constraints in input order, {@code null} for failed entries
+     */
+    public List<Constraint<?>> getConstraints() {
+        return Collections.unmodifiableList(Arrays.asList(constraints));
+    }
+
+    /**
+     * @return errors of the failed entries keyed by their index
+     */
+    public Map<Integer, Exception> getErrors() {
+        Map<Integer, Exception> map = new TreeMap<>();
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                map.put(i, errors[i]);
+            }
+        }
+        return map;
+    }
+
+    public boolean hasErrors() {
+        for (Exception error : errors) {
+            if (error != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,41 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Boolean expression in disjunctive normal form as produced by
+ * {@link CompoundParser}: it matches if any of its terms does. An expression
+ * without terms can never match.
+ */
+public final class CompiledExpression {
+
+    private final List<Conjunction> terms;
+    private final Set<Constraint<?>> constraints;
+
+    CompiledExpression(List<Conjunction> terms) {
+        this.terms = Collections.unmodifiableList(terms);
+
+        Set<Constraint<?>> distinct = Collections.newSetFromMap(new IdentityHashMap<Constraint<?>, Boolean>());
+        for (Conjunction term : terms) {
+            distinct.addAll(term.getConstraints());
+            distinct.addAll(term.getNegatedConstraints());
+        }
+        this.constraints = Collections.unmodifiableSet(distinct);
+    }
+
+    public List<Conjunction> getTerms() {
+        return terms;
+    }
+
+    /**
+     * @return every distinct constraint used by any of the terms, these are
+     * the predicates that have to be registered
+     */
+    public Set<Constraint<?>> getConstraints() {
+        return constraints;
+    }
+}
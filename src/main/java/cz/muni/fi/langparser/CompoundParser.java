@@ -0,0 +1,323 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses boolean combinations of single-attribute expressions, e.g.
+ * <pre>
+ * level #eq ERROR &amp;&amp; !(source #pref 'cz.muni.' || priority #lt 3)
+ * </pre>
+ * and normalizes them into a {@link CompiledExpression} in disjunctive normal
+ * form. Each predicate is {@code attribute #op args} as understood by
+ * {@link LangParser}. {@code &&} and {@code ||} must be surrounded by spaces,
+ * {@code !} binds tighter than {@code &&}, which binds tighter than
+ * {@code ||}. An unquoted argument ends at {@code )}, so arguments containing
+ * one have to be quoted.
+ * <p>
+ * Negations are pushed down to the predicates and kept as negative literals.
+ * A negated inequality is not turned into the opposite one, {@code !(x #lt 5)}
+ * holds for events without {@code x} while {@code x #ge 5} does not.
+ * Predicates are compared by value, not by how they are written, so e.g.
+ * {@code x #eq 5} and {@code x #eq 05} share one {@link Constraint} instance,
+ * across expressions too if a {@link ConstraintCache} is supplied and they
+ * are written the same. Terms that are contradictory or duplicate are
+ * dropped. The expansion is bounded, an expression whose normal form would
+ * have more than {@code maxTerms} terms is rejected.
+ * <p>
+ * The parser keeps no state between calls and is thread-safe.
+ */
+public class CompoundParser {
+
+    private static final int DEFAULT_MAX_TERMS = 64;
+
+    private final int maxTerms;
+    private final ConstraintCache cache;
+
+    public CompoundParser() {
+        this(DEFAULT_MAX_TERMS, null);
+    }
+
+    /**
+     * @param maxTerms maximum number of conjunctions of a normalized
+     * expression
+     * @param cache cache to share constraints through across expressions,
+     * may be {@code null}
+     */
+    public CompoundParser(int maxTerms, ConstraintCache cache) {
+        if (maxTerms <= 0) {
+            throw new IllegalArgumentException("Maximum number of terms must be positive");
+        }
+        this.maxTerms = maxTerms;
+        this.cache = cache;
+    }
+
+    public CompiledExpression parse(String expression) throws ParseException {
+        Compilation compilation = new Compilation(expression);
+        Set<Set<Literal>> terms = compilation.parseOr(false);
+        compilation.skipSpaces();
+        if (compilation.pos < expression.length()) {
+            throw new ParseException("End of input expected", compilation.pos);
+        }
+
+        List<Conjunction> conjunctions = new ArrayList<>(terms.size());
+        for (Set<Literal> term : terms) {
+            List<Constraint<?>> positive = new ArrayList<>();
+            List<Constraint<?>> negative = new ArrayList<>();
+            for (Literal literal : term) {
+                (literal.negated ? negative : positive).add(literal.constraint);
+            }
+            conjunctions.add(new Conjunction(positive, negative));
+        }
+        return new CompiledExpression(conjunctions);
+    }
+
+    /**
+     * Predicate occurrence in a term, compared by the constraint's value
+     * identity, so that e.g. {@code a #eq x} and {@code a #eq 'x'} are the
+     * same predicate.
+     */
+    private static final class Literal {
+
+        private final ConstraintKey key;
+        private final Constraint<?> constraint;
+        private final boolean negated;
+
+        Literal(ConstraintKey key, Constraint<?> constraint, boolean negated) {
+            this.key = key;
+            this.constraint = constraint;
+            this.negated = negated;
+        }
+
+        Literal negate() {
+            return new Literal(key, constraint, !negated);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Literal)) {
+                return false;
+            }
+            Literal other = (Literal) obj;
+            return (negated == other.negated) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() * 2 + (negated ? 1 : 0);
+        }
+    }
+
+    /**
+     * State of a single {@link #parse(String)} call. Every parse method
+     * directly returns the normal form of what it has read, negated if asked
+     * to (De Morgan), as a set of terms, each term being a set of literals.
+     */
+    private final class Compilation {
+
+        private final String input;
+        private final Map<ConstraintKey, Constraint<?>> constraints = new HashMap<>();
+        private int pos;
+
+        Compilation(String input) {
+            this.input = input;
+        }
+
+        Set<Set<Literal>> parseOr(boolean negated) throws ParseException {
+            Set<Set<Literal>> terms = parseAnd(negated);
+            while (acceptOperator("||")) {
+                Set<Set<Literal>> right = parseAnd(negated);
+                terms = negated ? product(terms, right) : union(terms, right);
+            }
+            return terms;
+        }
+
+        Set<Set<Literal>> parseAnd(boolean negated) throws ParseException {
+            Set<Set<Literal>> terms = parseUnary(negated);
+            while (acceptOperator("&&")) {
+                Set<Set<Literal>> right = parseUnary(negated);
+                terms = negated ? union(terms, right) : product(terms, right);
+            }
+            return terms;
+        }
+
+        Set<Set<Literal>> parseUnary(boolean negated) throws ParseException {
+            skipSpaces();
+            if (pos >= input.length()) {
+                throw new ParseException("Predicate expected", pos);
+            }
+
+            switch (input.charAt(pos)) {
+                case '!':
+                    pos++;
+                    return parseUnary(!negated);
+                case '(':
+                    pos++;
+                    Set<Set<Literal>> terms = parseOr(negated);
+                    skipSpaces();
+                    if ((pos >= input.length()) || (input.charAt(pos) != ')')) {
+                        throw new ParseException("Closing parenthesis expected", pos);
+                    }
+                    pos++;
+                    return terms;
+                default:
+                    Set<Literal> term = new LinkedHashSet<>();
+                    term.add(parsePredicate(negated));
+                    Set<Set<Literal>> single = new LinkedHashSet<>();
+                    single.add(term);
+                    return single;
+            }
+        }
+
+        private Literal parsePredicate(boolean negated) throws ParseException {
+            int nameStart = pos;
+            while ((pos < input.length()) && (input.charAt(pos) != ' ')) {
+                char c = input.charAt(pos);
+                if ((c == '(') || (c == ')') || (c == '#')) {
+                    throw new ParseException("Attribute name expected", pos);
+                }
+                pos++;
+            }
+            if ((pos == nameStart) || (pos >= input.length())) {
+                throw new ParseException("Attribute name followed by an expression expected", pos);
+            }
+            String attributeName = input.substring(nameStart, pos);
+            pos++;
+
+            int exprStart = pos;
+            int exprEnd = scanExpression();
+            Literal literal = resolve(attributeName, input.substring(exprStart, exprEnd), exprStart);
+            return negated ? literal.negate() : literal;
+        }
+
+        /**
+         * Advances to the end of the predicate's expression, i.e. to the
+         * first {@code )}, {@code " &&"} or {@code " ||"} outside quotes.
+         *
+         * @return end of the expression without trailing spaces
+         */
+        private int scanExpression() {
+            boolean quoted = false;
+            while (pos < input.length()) {
+                char c = input.charAt(pos);
+                if (c == '\'') {
+                    quoted = !quoted;
+                } else if (!quoted && ((c == ')') || ((c == ' ') && (input.startsWith("&&", pos + 1) || input.startsWith("||", pos + 1))))) {
+                    break;
+                }
+                pos++;
+            }
+
+            int end = pos;
+            while ((end > 0) && (input.charAt(end - 1) == ' ')) {
+                end--;
+            }
+            return end;
+        }
+
+        /**
+         * Returns the positive literal of the expression, its constraint is
+         * shared with all other predicates of the same value.
+         */
+        private Literal resolve(String attributeName, String expression, int offset) throws ParseException {
+            Constraint<?> constraint;
+            OperatorDefinition definition;
+            if (cache != null) {
+                try {
+                    constraint = cache.parse(attributeName, expression);
+                } catch (ParseException e) {
+                    throw new ParseException(e.getMessage(), offset + e.getErrorOffset());
+                } catch (IndexOutOfBoundsException e) {
+                    throw new ParseException(ParseError.MISSING_ARGUMENT.getMessage(), offset + expression.length());
+                }
+                definition = definitionOf(expression, constraint);
+            } else {
+                ParseResult result = LangParser.tryParse(attributeName, expression);
+                if (!result.isSuccess()) {
+                    throw new ParseException(result.getError().getMessage(), offset + result.getErrorPosition());
+                }
+                constraint = result.getConstraint();
+                definition = result.getOperatorDefinition();
+            }
+
+            ConstraintKey key = new ConstraintKey(constraint, definition);
+            Constraint<?> shared = constraints.get(key);
+            if (shared == null) {
+                constraints.put(key, constraint);
+                shared = constraint;
+            }
+            return new Literal(key, shared, false);
+        }
+
+        /**
+         * Recovers the definition of a cached constraint from the operator
+         * it was written with.
+         */
+        private OperatorDefinition definitionOf(String expression, Constraint<?> constraint) {
+            int space = expression.indexOf(' ');
+            OperatorDefinition definition = OperatorRegistry.getDefault().get((space < 0) ? expression : expression.substring(0, space));
+            return (definition != null) ? definition : OperatorRegistry.getDefault().definitionOf(constraint);
+        }
+
+        private boolean acceptOperator(String operator) {
+            int start = pos;
+            skipSpaces();
+            if (input.startsWith(operator, pos)) {
+                pos += operator.length();
+                return true;
+            }
+            pos = start;
+            return false;
+        }
+
+        void skipSpaces() {
+            while ((pos < input.length()) && (input.charAt(pos) == ' ')) {
+                pos++;
+            }
+        }
+
+        private Set<Set<Literal>> union(Set<Set<Literal>> left, Set<Set<Literal>> right) throws ParseException {
+            Set<Set<Literal>> terms = new LinkedHashSet<>(left);
+            terms.addAll(right);
+            checkSize(terms.size());
+            return terms;
+        }
+
+        private Set<Set<Literal>> product(Set<Set<Literal>> left, Set<Set<Literal>> right) throws ParseException {
+            checkSize((long) left.size() * right.size());
+
+            Set<Set<Literal>> terms = new LinkedHashSet<>();
+            for (Set<Literal> l : left) {
+                for (Set<Literal> r : right) {
+                    Set<Literal> term = new LinkedHashSet<>(l);
+                    term.addAll(r);
+                    if (!isContradictory(term)) {
+                        terms.add(term);
+                    }
+                }
+            }
+            return terms;
+        }
+
+        private boolean isContradictory(Set<Literal> term) {
+            for (Literal literal : term) {
+                if (term.contains(literal.negate())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void checkSize(long size) throws ParseException {
+            if (size > maxTerms) {
+                throw new ParseException("Expression too complex, more than " + maxTerms + " terms", pos);
+            }
+        }
+    }
+}
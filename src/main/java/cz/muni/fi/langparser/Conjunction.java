@@ -0,0 +1,28 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single term of a {@link CompiledExpression}: all of its constraints have to
+ * match and none of its negated constraints may match.
+ */
+public final class Conjunction {
+
+    private final List<Constraint<?>> constraints;
+    private final List<Constraint<?>> negatedConstraints;
+
+    Conjunction(List<Constraint<?>> constraints, List<Constraint<?>> negatedConstraints) {
+        this.constraints = Collections.unmodifiableList(constraints);
+        this.negatedConstraints = Collections.unmodifiableList(negatedConstraints);
+    }
+
+    public List<Constraint<?>> getConstraints() {
+        return constraints;
+    }
+
+    public List<Constraint<?>> getNegatedConstraints() {
+        return negatedConstraints;
+    }
+}
@@ -0,0 +1,205 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded cache of parsed constraints placed in front of
+ * {@link LangParser#parse(String, CharSequence)}. Every distinct
+ * (attributeName, input) pair is parsed once and the resulting
+ * {@link Constraint} is shared by all callers, so it must be treated as
+ * immutable.
+ * <p>
+ * The cache is split into independently locked LRU segments, so concurrent
+ * lookups of different expressions rarely contend. Parsing itself happens
+ * outside of any lock. Malformed expressions are not cached, the
+ * {@link ParseException} is simply rethrown.
+ */
+public class ConstraintCache {
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    public ConstraintCache(int maximumSize) {
+        this(maximumSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConstraintCache(int maximumSize, int concurrencyLevel) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Concurrency level must be positive");
+        }
+
+        int segmentCount = 1;
+        while ((segmentCount < concurrencyLevel) && (segmentCount < maximumSize)) {
+            segmentCount <<= 1;
+        }
+
+        segments = new Segment[segmentCount];
+        segmentMask = segmentCount - 1;
+        int segmentSize = (maximumSize + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Returns the shared constraint for the given expression, parsing it on
+     * the first request.
+     */
+    public Constraint<?> parse(String attributeName, String input) throws ParseException, IndexOutOfBoundsException {
+        Key key = new Key(attributeName, input);
+        Segment segment = segmentFor(key);
+
+        Constraint<?> constraint = segment.lookup(key);
+        if (constraint != null) {
+            return constraint;
+        }
+
+        return segment.store(key, LangParser.parse(attributeName, input));
+    }
+
+    public long getHitCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.hits;
+            }
+        }
+        return count;
+    }
+
+    public long getMissCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.misses;
+            }
+        }
+        return count;
+    }
+
+    public long getEvictionCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.evictions;
+            }
+        }
+        return count;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Drops all cached constraints, the statistics are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    private static final class Key {
+
+        private final String attributeName;
+        private final String input;
+        private final int hash;
+
+        Key(String attributeName, String input) {
+            this.attributeName = attributeName;
+            this.input = input;
+            this.hash = 31 * attributeName.hashCode() + input.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return (hash == other.hash) && input.equals(other.input) && attributeName.equals(other.attributeName);
+        }
+    }
+
+    /**
+     * LRU segment, all access is guarded by the segment's monitor.
+     */
+    private static final class Segment extends LinkedHashMap<Key, Constraint<?>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        synchronized Constraint<?> lookup(Key key) {
+            Constraint<?> constraint = get(key);
+            if (constraint != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return constraint;
+        }
+
+        /**
+         * Stores a freshly parsed constraint unless another thread has been
+         * faster, in which case its constraint wins so that only one instance
+         * per expression is ever handed out.
+         */
+        synchronized Constraint<?> store(Key key, Constraint<?> constraint) {
+            Constraint<?> existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+            put(key, constraint);
+            return constraint;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Constraint<?>> eldest) {
+            if (size() > capacity) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
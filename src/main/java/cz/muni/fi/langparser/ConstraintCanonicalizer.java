@@ -0,0 +1,117 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.AttributeValue;
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.LongRange;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.text.ParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Rewrites parsed constraints into a normal form and interns them, so that
+ * semantically equal constraints are the very same instance:
+ * <ul>
+ * <li>integer inequalities use only {@code >=} and {@code <}, i.e.
+ * {@code #gt 4} becomes {@code #ge 5} and {@code #le 20} becomes
+ * {@code #lt 21},</li>
+ * <li>a range with equal bounds becomes an equality,</li>
+ * <li>attribute names and String values are interned through a shared
+ * pool.</li>
+ * </ul>
+ * Constraints of non-native operators such as {@code #in} are never equal to
+ * constraints of their placeholder {@link Operator}.
+ * Both pools only grow, call {@link #clear()} when the subscriptions they
+ * were built for are gone. The canonicalizer is thread-safe.
+ */
+public class ConstraintCanonicalizer {
+
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ConstraintKey, Constraint<?>> constraints = new ConcurrentHashMap<>();
+
+    /**
+     * Parses the expression and returns its canonical constraint.
+     */
+    public Constraint<?> parse(String attributeName, CharSequence input) throws ParseException {
+        ParseResult result = LangParser.tryParse(attributeName, input);
+        LangParser.unwrap(result);
+        return canonicalize(result.getConstraint(), result.getOperatorDefinition());
+    }
+
+    /**
+     * Canonicalizes a constraint of a built-in operator, see
+     * {@link OperatorRegistry#definitionOf(Constraint)}.
+     */
+    public Constraint<?> canonicalize(Constraint<?> constraint) {
+        return canonicalize(constraint, OperatorRegistry.getDefault().definitionOf(constraint));
+    }
+
+    /**
+     * Canonicalizes the constraint as parsed with the given operator, see
+     * {@link ParseResult#getOperatorDefinition()}.
+     */
+    public Constraint<?> canonicalize(Constraint<?> constraint, OperatorDefinition definition) {
+        String attributeName = intern(constraint.getAttributeName());
+        Operator operator = constraint.getOperator();
+        AttributeValue<?> av = constraint.getAttributeValue();
+        AttributeValue<?> value = av;
+
+        if (!definition.isNative()) {
+            //the operator is only a placeholder, rewriting by it would change the meaning
+        } else if (av.getType() == Long.class) {
+            long num = (Long) av.getValue();
+            if (num != Long.MAX_VALUE) {
+                if (operator == Operator.GREATER_THAN) {
+                    operator = Operator.GREATER_THAN_OR_EQUAL_TO;
+                    value = new AttributeValue<>(num + 1, Long.class);
+                } else if (operator == Operator.LESS_THAN_OR_EQUAL_TO) {
+                    operator = Operator.LESS_THAN;
+                    value = new AttributeValue<>(num + 1, Long.class);
+                }
+            }
+        } else if (av.getType() == String.class) {
+            String string = intern((String) av.getValue());
+            if (string != av.getValue()) {
+                value = new AttributeValue<>(string, String.class);
+            }
+        } else if (av.getType() == LongRange.class) {
+            LongRange range = (LongRange) av.getValue();
+            if (range.getStart().equals(range.getEnd())) {
+                operator = Operator.EQUALS;
+                value = new AttributeValue<>(range.getStart(), Long.class);
+            }
+        }
+
+        ConstraintKey key = new ConstraintKey(attributeName, operator, definition, value);
+        Constraint<?> canonical = constraints.get(key);
+        if (canonical != null) {
+            return canonical;
+        }
+
+        if ((attributeName == constraint.getAttributeName()) && (operator == constraint.getOperator()) && (value == av)) {
+            canonical = constraint;
+        } else {
+            canonical = new Constraint<>(attributeName, value, operator);
+        }
+
+        Constraint<?> existing = constraints.putIfAbsent(key, canonical);
+        return (existing != null) ? existing : canonical;
+    }
+
+    public String intern(String string) {
+        String existing = strings.putIfAbsent(string, string);
+        return (existing != null) ? existing : string;
+    }
+
+    /**
+     * @return number of distinct canonical constraints
+     */
+    public int size() {
+        return constraints.size();
+    }
+
+    public void clear() {
+        constraints.clear();
+        strings.clear();
+    }
+}
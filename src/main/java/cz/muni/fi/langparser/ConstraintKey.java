@@ -0,0 +1,59 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.AttributeValue;
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.LongRange;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.util.Arrays;
+
+/**
+ * Value identity of a constraint: attribute name, {@link Operator}, value
+ * type and value, plus the operator name for non-native operators, whose
+ * {@link Operator} is only a placeholder. Two constraints with equal keys
+ * mean the same regardless of how they were written.
+ */
+final class ConstraintKey {
+
+    private final String attributeName;
+    private final Operator operator;
+    private final String nonNativeOperator;
+    private final Class<?> type;
+    private final Object value;
+
+    ConstraintKey(Constraint<?> constraint, OperatorDefinition definition) {
+        this(constraint.getAttributeName(), constraint.getOperator(), definition, constraint.getAttributeValue());
+    }
+
+    ConstraintKey(String attributeName, Operator operator, OperatorDefinition definition, AttributeValue<?> av) {
+        this.attributeName = attributeName;
+        this.operator = operator;
+        this.nonNativeOperator = definition.isNative() ? null : definition.getName();
+        this.type = av.getType();
+        if (av.getValue() instanceof LongRange) { //compared by its bounds
+            LongRange range = (LongRange) av.getValue();
+            this.value = Arrays.asList(range.getStart(), range.getEnd());
+        } else {
+            this.value = av.getValue();
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ConstraintKey)) {
+            return false;
+        }
+        ConstraintKey other = (ConstraintKey) obj;
+        return attributeName.equals(other.attributeName) && (operator == other.operator)
+                && ((nonNativeOperator == null) ? (other.nonNativeOperator == null) : nonNativeOperator.equals(other.nonNativeOperator))
+                && (type == other.type) && value.equals(other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = attributeName.hashCode();
+        hash = 31 * hash + operator.hashCode();
+        hash = 31 * hash + ((nonNativeOperator == null) ? 0 : nonNativeOperator.hashCode());
+        hash = 31 * hash + type.hashCode();
+        return 31 * hash + value.hashCode();
+    }
+}
@@ -0,0 +1,287 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.AttributeValue;
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.LongRange;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.util.Date;
+
+/**
+ * Constraint compiled into a test over primitive or {@link CharSequence}
+ * values, for evaluating constraints directly without boxing. Values are
+ * passed as the attribute's natural primitive: integers as {@code long},
+ * dates as epoch millis, times of day as millis of day and decimals as
+ * {@code double} (integers are accepted there too).
+ * <p>
+ * All integer, date and time comparisons become a single closed interval
+ * check, e.g. {@code #lt 5} is {@code [Long.MIN_VALUE, 4]}, and decimal ones
+ * likewise using the adjacent double for strict bounds. A test for a kind of
+ * value the constraint is not about returns {@code false}.
+ * <p>
+ * Predicates are immutable and thread-safe.
+ */
+public abstract class ConstraintPredicate {
+
+    ConstraintPredicate() {
+    }
+
+    public boolean test(long value) {
+        return false;
+    }
+
+    public boolean test(double value) {
+        return false;
+    }
+
+    public boolean test(CharSequence value) {
+        return false;
+    }
+
+    /**
+     * Compiles a constraint of a built-in operator, see
+     * {@link OperatorRegistry#definitionOf(Constraint)}.
+     *
+     * @throws IllegalArgumentException if the constraint's value type or its
+     * combination with the operator is not one {@link LangParser} produces
+     */
+    public static ConstraintPredicate compile(Constraint<?> constraint) {
+        return compile(constraint, OperatorRegistry.getDefault().definitionOf(constraint));
+    }
+
+    /**
+     * Compiles the constraint as parsed with the given operator, see
+     * {@link ParseResult#getOperatorDefinition()}.
+     *
+     * @throws IllegalArgumentException if the constraint's value type or its
+     * combination with the operator is not one {@link LangParser} produces
+     */
+    public static ConstraintPredicate compile(Constraint<?> constraint, OperatorDefinition definition) {
+        if (!definition.isNative()) {
+            return compileNonNative(constraint, definition);
+        }
+
+        Operator operator = constraint.getOperator();
+        AttributeValue<?> av = constraint.getAttributeValue();
+        Class<?> type = av.getType();
+        Object value = av.getValue();
+
+        if (type == Long.class) {
+            return compare(operator, (Long) value, constraint);
+        } else if (type == Date.class) {
+            return compare(operator, ((Date) value).getTime(), constraint);
+        } else if (type == Time.class) {
+            return compare(operator, ((Time) value).getMillisOfDay(), constraint);
+        } else if (type == Double.class) {
+            return compare(operator, (Double) value, constraint);
+        } else if ((type == LongRange.class) && (operator == Operator.RANGE)) {
+            LongRange range = (LongRange) value;
+            return new LongInterval(range.getStart(), range.getEnd());
+        } else if ((type == DateRange.class) && (operator == Operator.RANGE)) {
+            DateRange range = (DateRange) value;
+            return new LongInterval(range.getStartMillis(), range.getEndMillis());
+        } else if ((type == TimeRange.class) && (operator == Operator.RANGE)) {
+            TimeRange range = (TimeRange) value;
+            return new LongInterval(range.getStart().getMillisOfDay(), range.getEnd().getMillisOfDay());
+        } else if ((type == DoubleRange.class) && (operator == Operator.RANGE)) {
+            DoubleRange range = (DoubleRange) value;
+            return new DoubleInterval(range.getStart(), range.getEnd());
+        } else if ((type == String.class) && (operator == Operator.EQUALS)) {
+            return new StringEquals((String) value);
+        } else if ((type == String.class) && (operator == Operator.PREFIX)) {
+            return new StringPrefix((String) value);
+        }
+        throw new IllegalArgumentException("Cannot compile " + constraint);
+    }
+
+    private static ConstraintPredicate compileNonNative(Constraint<?> constraint, OperatorDefinition definition) {
+        Object value = constraint.getAttributeValue().getValue();
+        switch (definition.getName()) {
+            case "#in":
+                if (value instanceof LongSet) {
+                    return new LongMember((LongSet) value);
+                } else if (value instanceof StringSet) {
+                    return new StringMember((StringSet) value);
+                }
+                break;
+            case "#suff":
+                if (value instanceof Suffix) {
+                    return new StringSuffix((Suffix) value);
+                }
+                break;
+            case "#contains":
+                if (value instanceof Substring) {
+                    return new StringContains((Substring) value);
+                }
+                break;
+            default:
+                break;
+        }
+        throw new IllegalArgumentException("Cannot compile " + constraint + " as " + definition.getName());
+    }
+
+    private static ConstraintPredicate compare(Operator operator, long bound, Constraint<?> constraint) {
+        switch (operator) {
+            case LESS_THAN:
+                return (bound == Long.MIN_VALUE) ? new LongInterval(0, -1) : new LongInterval(Long.MIN_VALUE, bound - 1);
+            case LESS_THAN_OR_EQUAL_TO:
+                return new LongInterval(Long.MIN_VALUE, bound);
+            case GREATER_THAN:
+                return (bound == Long.MAX_VALUE) ? new LongInterval(0, -1) : new LongInterval(bound + 1, Long.MAX_VALUE);
+            case GREATER_THAN_OR_EQUAL_TO:
+                return new LongInterval(bound, Long.MAX_VALUE);
+            case EQUALS:
+                return new LongInterval(bound, bound);
+            default:
+                throw new IllegalArgumentException("Cannot compile " + constraint);
+        }
+    }
+
+    private static ConstraintPredicate compare(Operator operator, double bound, Constraint<?> constraint) {
+        switch (operator) {
+            case LESS_THAN:
+                return new DoubleInterval(Double.NEGATIVE_INFINITY, Math.nextAfter(bound, Double.NEGATIVE_INFINITY));
+            case LESS_THAN_OR_EQUAL_TO:
+                return new DoubleInterval(Double.NEGATIVE_INFINITY, bound);
+            case GREATER_THAN:
+                return new DoubleInterval(Math.nextUp(bound), Double.POSITIVE_INFINITY);
+            case GREATER_THAN_OR_EQUAL_TO:
+                return new DoubleInterval(bound, Double.POSITIVE_INFINITY);
+            case EQUALS:
+                return new DoubleInterval(bound, bound);
+            default:
+                throw new IllegalArgumentException("Cannot compile " + constraint);
+        }
+    }
+
+    private static final class LongInterval extends ConstraintPredicate {
+
+        private final long min;
+        private final long max;
+
+        LongInterval(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public boolean test(long value) {
+            return (min <= value) && (value <= max);
+        }
+    }
+
+    private static final class DoubleInterval extends ConstraintPredicate {
+
+        private final double min;
+        private final double max;
+
+        DoubleInterval(double min, double max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public boolean test(long value) {
+            return test((double) value);
+        }
+
+        @Override
+        public boolean test(double value) {
+            return (min <= value) && (value <= max);
+        }
+    }
+
+    private static final class StringEquals extends ConstraintPredicate {
+
+        private final String expected;
+
+        StringEquals(String expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        public boolean test(CharSequence value) {
+            return expected.contentEquals(value);
+        }
+    }
+
+    private static final class StringPrefix extends ConstraintPredicate {
+
+        private final String prefix;
+
+        StringPrefix(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean test(CharSequence value) {
+            if (value.length() < prefix.length()) {
+                return false;
+            }
+            if (value instanceof String) {
+                return ((String) value).regionMatches(0, prefix, 0, prefix.length());
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (value.charAt(i) != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class StringSuffix extends ConstraintPredicate {
+
+        private final Suffix suffix;
+
+        StringSuffix(Suffix suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean test(CharSequence value) {
+            return suffix.matches(value);
+        }
+    }
+
+    private static final class StringContains extends ConstraintPredicate {
+
+        private final Substring substring;
+
+        StringContains(Substring substring) {
+            this.substring = substring;
+        }
+
+        @Override
+        public boolean test(CharSequence value) {
+            return substring.matches(value);
+        }
+    }
+
+    private static final class LongMember extends ConstraintPredicate {
+
+        private final LongSet set;
+
+        LongMember(LongSet set) {
+            this.set = set;
+        }
+
+        @Override
+        public boolean test(long value) {
+            return set.contains(value);
+        }
+    }
+
+    private static final class StringMember extends ConstraintPredicate {
+
+        private final StringSet set;
+
+        StringMember(StringSet set) {
+            this.set = set;
+        }
+
+        @Override
+        public boolean test(CharSequence value) {
+            return set.contains(value);
+        }
+    }
+}
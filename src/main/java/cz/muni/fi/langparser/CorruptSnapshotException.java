@@ -0,0 +1,21 @@
+package cz.muni.fi.langparser;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link SnapshotReader} if a snapshot is truncated, fails its
+ * checksum or has an unknown version. The subscriptions have to be parsed
+ * from their textual form again.
+ */
+public class CorruptSnapshotException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CorruptSnapshotException(String message) {
+        super(message);
+    }
+
+    public CorruptSnapshotException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,66 @@
+package cz.muni.fi.langparser;
+
+import java.util.Date;
+
+/**
+ * Closed interval of instants, the value of {@code #rng} with two date
+ * literals.
+ */
+public final class DateRange implements Comparable<DateRange> {
+
+    private final long start;
+    private final long end;
+
+    public DateRange(Date start, Date end) {
+        this(start.getTime(), end.getTime());
+    }
+
+    public DateRange(long startMillis, long endMillis) {
+        this.start = startMillis;
+        this.end = endMillis;
+    }
+
+    public Date getStart() {
+        return new Date(start);
+    }
+
+    public Date getEnd() {
+        return new Date(end);
+    }
+
+    public long getStartMillis() {
+        return start;
+    }
+
+    public long getEndMillis() {
+        return end;
+    }
+
+    @Override
+    public int compareTo(DateRange o) {
+        if (start != o.start) {
+            return (start < o.start) ? -1 : 1;
+        }
+        return (end < o.end) ? -1 : ((end == o.end) ? 0 : 1);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof DateRange)) {
+            return false;
+        }
+        DateRange other = (DateRange) obj;
+        return (start == other.start) && (end == other.end);
+    }
+
+    @Override
+    public int hashCode() {
+        long h = start * 31 + end;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "DateRange{" + getStart() + ", " + getEnd() + "}";
+    }
+}
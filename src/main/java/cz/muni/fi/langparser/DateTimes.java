@@ -0,0 +1,66 @@
+package cz.muni.fi.langparser;
+
+import java.util.TimeZone;
+
+/**
+ * Calendar arithmetic for date/time literals, done on primitives so that no
+ * {@link java.util.Calendar} has to be allocated per literal.
+ */
+final class DateTimes {
+
+    static final int MILLIS_PER_SECOND = 1000;
+    static final int MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    static final int MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    static final int MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    /**
+     * Zone of literals without an explicit offset, captured once.
+     */
+    private static final TimeZone ZONE = TimeZone.getDefault();
+
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private DateTimes() {
+    }
+
+    static boolean isLeapYear(int year) {
+        return ((year % 4 == 0) && (year % 100 != 0)) || (year % 400 == 0);
+    }
+
+    /**
+     * @param month 1-based month
+     */
+    static int daysInMonth(int year, int month) {
+        if ((month == 2) && isLeapYear(year)) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Days since 1970-01-01 of the given proleptic Gregorian date.
+     *
+     * @param month 1-based month
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        int y = (month <= 2) ? year - 1 : year;
+        int era = ((y >= 0) ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * Converts wall-clock millis in the default zone to epoch millis.
+     */
+    static long localToUtc(long localMillis) {
+        int offset = ZONE.getOffset(localMillis - ZONE.getRawOffset());
+        long utc = localMillis - offset;
+        int actualOffset = ZONE.getOffset(utc);
+        if (actualOffset != offset) { //crossed a DST transition
+            utc = localMillis - actualOffset;
+        }
+        return utc;
+    }
+}
@@ -0,0 +1,99 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Difference between two versions of a {@link SubscriptionDocument}.
+ * Unchanged constraints are the very instances reported as added before, so
+ * whatever has been registered for them stays valid.
+ */
+public final class DocumentDelta {
+
+    private final List<Constraint<?>> added;
+    private final List<Constraint<?>> removed;
+    private final List<Constraint<?>> unchanged;
+    private final Map<Integer, LineError> errors;
+
+    DocumentDelta(List<Constraint<?>> added, List<Constraint<?>> removed, List<Constraint<?>> unchanged,
+            Map<Integer, LineError> errors) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.unchanged = Collections.unmodifiableList(unchanged);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * @return constraints of lines that are new, in document order
+     */
+    public List<Constraint<?>> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return constraints of lines that are gone
+     */
+    public List<Constraint<?>> getRemoved() {
+        return removed;
+    }
+
+    public List<Constraint<?>> getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * @return errors of malformed lines keyed by their 1-based line number
+     */
+    public Map<Integer, LineError> getErrors() {
+        return errors;
+    }
+
+    public boolean hasChanges() {
+        return !added.isEmpty() || !removed.isEmpty();
+    }
+
+    /**
+     * Malformed line together with the text it was rejected for.
+     */
+    public static final class LineError {
+
+        private final int lineNumber;
+        private final String line;
+        private final ParseException exception;
+
+        LineError(int lineNumber, String line, ParseException exception) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.exception = exception;
+        }
+
+        /**
+         * @return 1-based number of the line
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * @return the line without its line terminator
+         */
+        public String getLine() {
+            return line;
+        }
+
+        /**
+         * @return the error, its offset is the column within the line
+         */
+        public ParseException getException() {
+            return exception;
+        }
+
+        @Override
+        public String toString() {
+            return lineNumber + ": " + exception.getMessage() + " at " + exception.getErrorOffset() + " in " + line;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package cz.muni.fi.langparser;
+
+/**
+ * Closed interval of doubles, the value of {@code #rng} when at least one of
+ * its bounds is a non-integer number.
+ */
+public final class DoubleRange implements Comparable<DoubleRange> {
+
+    private final double start;
+    private final double end;
+
+    public DoubleRange(double start, double end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public Double getStart() {
+        return start;
+    }
+
+    public Double getEnd() {
+        return end;
+    }
+
+    @Override
+    public int compareTo(DoubleRange o) {
+        int c = Double.compare(start, o.start);
+        return (c != 0) ? c : Double.compare(end, o.end);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof DoubleRange)) {
+            return false;
+        }
+        DoubleRange other = (DoubleRange) obj;
+        return (Double.compare(start, other.start) == 0) && (Double.compare(end, other.end) == 0);
+    }
+
+    @Override
+    public int hashCode() {
+        long h = 31 * Double.doubleToLongBits(start) + Double.doubleToLongBits(end);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "DoubleRange{" + start + ", " + end + "}";
+    }
+}
@@ -1,21 +1,15 @@
 package cz.muni.fi.langparser;
 
-import cz.muni.fi.publishsubscribe.countingtree.AttributeValue;
 import cz.muni.fi.publishsubscribe.countingtree.Constraint;
-import cz.muni.fi.publishsubscribe.countingtree.LongRange;
-import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.GregorianCalendar;
 
 public class LangParser {
 
+    private static volatile ParserMetrics metrics;
+
     private final String attributeName;
     private final String input;
-    private int currentPos = 0;
-    private char current;
-    private String alreadyRead = "";
 
     public LangParser(String attributeName, String input) {
         this.attributeName = attributeName;
@@ -23,336 +17,181 @@ public class LangParser {
     }
 
     public Constraint<?> parse() throws ParseException, IndexOutOfBoundsException {
-        AttributeValue<?> av = null;
-        Operator operator = null;
-
-        switch (readString()) {
-            case "#lt":
-                operator = Operator.LESS_THAN;
-                av = argNum();
-                break;
-            case "#le":
-                operator = Operator.LESS_THAN_OR_EQUAL_TO;
-                av = argNum();
-                break;
-            case "#gt":
-                operator = Operator.GREATER_THAN;
-                av = argNum();
-                break;
-            case "#ge":
-                operator = Operator.GREATER_THAN_OR_EQUAL_TO;
-                av = argNum();
-                break;
-            case "#eq":
-                operator = Operator.EQUALS;
-                av = argAny();
-                break;
-            case "#rng":
-                operator = Operator.RANGE;
-                av = argNum_argNum();
-                break;
-            case "#pref":
-                operator = Operator.PREFIX;
-                av = argString();
-                break;
-            //TODO case "#suff"
-
+        return parse(attributeName, input, 0, input.length());
+    }
+
+    /**
+     * Parses the whole {@code src} as an expression for the given attribute.
+     *
+     * @see #parse(String, CharSequence, int, int)
+     */
+    public static Constraint<?> parse(String attributeName, CharSequence src) throws ParseException, IndexOutOfBoundsException {
+        return parse(attributeName, src, 0, src.length());
+    }
+
+    /**
+     * Parses the expression stored in {@code src[from, to)} without copying it
+     * out first. No state is kept between calls, so this method may be called
+     * concurrently from any number of threads (as long as nobody modifies
+     * {@code src} meanwhile).
+     *
+     * @param attributeName name of the attribute the constraint applies to
+     * @param src buffer containing the expression
+     * @param from index of the first character of the expression
+     * @param to index just past the last character of the expression
+     * @return the parsed constraint
+     * @throws ParseException if the expression is malformed, the error offset
+     * is an index into {@code src}
+     * @throws IndexOutOfBoundsException if {@code [from, to)} is not a valid
+     * slice of {@code src} or the expression ends before its argument
+     * @throws UnsupportedOperationException if the argument is of a type that
+     * is not supported yet
+     * @see #tryParse(String, CharSequence, int, int)
+     */
+    public static Constraint<?> parse(String attributeName, CharSequence src, int from, int to) throws ParseException, IndexOutOfBoundsException {
+        return unwrap(tryParse(attributeName, src, from, to));
+    }
+
+    /**
+     * Same as {@link #parse(String, CharSequence, int, int)}, but the argument
+     * is read as the type the attribute has in {@code schema}.
+     *
+     * @see AttributeSchema
+     */
+    public static Constraint<?> parse(AttributeSchema schema, String attributeName, CharSequence src, int from, int to) throws ParseException, IndexOutOfBoundsException {
+        return unwrap(tryParse(schema, attributeName, src, from, to));
+    }
+
+    static Constraint<?> unwrap(ParseResult result) throws ParseException {
+        if (result.isSuccess()) {
+            return result.getConstraint();
+        }
+
+        switch (result.getError()) {
+            case MISSING_ARGUMENT:
+                throw new IndexOutOfBoundsException(result.getError().getMessage() + " at " + result.getErrorPosition());
+            case UNSUPPORTED_VALUE:
+                throw new UnsupportedOperationException(result.getError().getMessage());
             default:
-                throw new ParseException("Unsupported Operator", currentPos);
-        }
-
-        return createConstraint(av, operator);
-    }
-
-    private AttributeValue<?> argNum() throws ParseException {
-        if (! acceptSpace()) {
-            throw new ParseException("Exactly one space expected", currentPos);
-        }
-
-        alreadyRead = "";
-
-        current = readChar();
-        if (current == '\'') { //expect quoted String -> if acceptable, argAny will take care of it
-            throw new ParseException("Number expected", currentPos);
-        }
-
-        if (current == '-') { //expect negative number
-            alreadyRead += current;
-            while ((!isLastArg()) && (readCharIfNotSpace())) {
-                alreadyRead += current;
-            }
-
-            return createNumericAttributeValue();
-        }
-
-        int dateEndsAt = 0;
-        int year = 0;
-        int month = 0;
-        int day = 0;
-        int hour;
-        int min;
-        int sec;
-
-        alreadyRead += current;
-        while ((!isLastArg()) && (readCharIfNotSpace())) {
-            if (current == '-') { //expect date (y-m-dTh:m:s)
-                year = getInteger(alreadyRead);
-                month = readIntegerUntil('-');
-                day = readIntegerUntil('T');
-                dateEndsAt = alreadyRead.length() + 1;
-            }
-
-            if (current == ':') { //expect time (h:m:s)
-                hour = getInteger(alreadyRead.substring(dateEndsAt));
-                min = readIntegerUntil(':');
-                alreadyRead += current;
-                String seconds = readString();
-                alreadyRead += seconds;
-
-                if (isLastArg()) {
-                    sec = getInteger(seconds);
-                    if (dateEndsAt == 0) {
-                        //TODO AttributeValue<Time>...
-                        throw new UnsupportedOperationException("Time not supported yet");
-                    } else {
-                        Calendar dateTime = new GregorianCalendar(year, month, day, hour, min, sec);
-                        return new AttributeValue<>(dateTime.getTime(), Date.class);
-                    }
-                }
-            }
-            alreadyRead += current;
-        }
-
-        //else expect positive integer
-        return createNumericAttributeValue();
-    }
-
-    private AttributeValue<?> argAny() throws ParseException {
-        AttributeValue<?> av = null;
-        try {
-            av = argNum();
-        } catch (ParseException | UnsupportedOperationException e) {
-            //TODO
-        }
-
-        if (av == null) {
-            if (alreadyRead.equals("")) { //only possible if the first char was a space or '
-                switch (current) {
-                    case ' ':
-                        throw new ParseException("No space expected", currentPos - 1);
-                    case '\'':
-                        av = readQuotedString();
-                }
-            } else {
-                alreadyRead += readString();
-
-                if (alreadyRead.trim().length() == 0) {
-                    throw new ParseException("No space expected", currentPos - 1);
-                }
-
-                av = new AttributeValue<>(alreadyRead, String.class);
-            }
-        }
-
-        return av;
-    }
-
-    private AttributeValue<?> argString() throws ParseException {
-        if (!acceptSpace()) {
-            throw new ParseException("Exactly one space expected", currentPos);
-        }
-
-        AttributeValue<String> av = null;
-        alreadyRead = "";
-        current = readChar();
-
-        switch (current) {
-            case ' ':
-                throw new ParseException("No space expected", currentPos - 1);
-            case '\'':
-                av = readQuotedString();
-                break;
-            default:
-                alreadyRead += current + readString();
-                if (isLastArg()) {
-                    av = new AttributeValue<>(alreadyRead, String.class);
-                } else {
-                    throw new ParseException("No space expected", currentPos);
-                }
-        }
-
-        return av;
-    }
-
-    private AttributeValue<?> argNum_argNum() throws ParseException {
-        AttributeValue<?> av1 = argNum();
-
-        if (av1.getType() == Date.class) {
-            AttributeValue<?> av2 = argNum();
-
-            if (av2.getType() == Date.class) {
-                //TODO return new AttributeValue<DateRange>...
-                throw new UnsupportedOperationException("DateRange not supported yet");
-            } else {
-                throw new ParseException("Type mismatch", currentPos);
-            }
-        }
-
-        //TODO time
-
-        if (av1.getType() == Double.class) {
-            AttributeValue<?> av2 = argNum();
-
-            if ((av2.getType() == Double.class) || (av2.getType() == Long.class)) {
-                //TODO return new AttributeValue<DoubleRange>...
-                throw new UnsupportedOperationException("DoubleRange not supported yet");
-            } else {
-                throw new ParseException("Type mismatch", currentPos);
-            }
-        }
-
-        if (av1.getType() == Long.class) {
-            AttributeValue<?> av2 = argNum();
-
-            if (av2.getType() == Long.class) {
-                return new AttributeValue<>(new LongRange((Long)av1.getValue(), (Long)av2.getValue()), LongRange.class);
-            } else {
-                if (av2.getType() == Double.class) {
-                    //TODO return new AttributeValue<DoubleRange>...
-                    throw new UnsupportedOperationException("DoubleRange not supported yet");
-                } else {
-                    throw new ParseException("Type mismatch", currentPos);
-                }
-            }
-        }
-
-        throw new ParseException(av1.getType() + " not supported", currentPos);
-    }
-
-    private char readChar() {
-        char next = input.charAt(currentPos);
-        currentPos++;
-        return next;
-    }
-
-    private boolean readCharIfNotSpace() {
-        if (input.charAt(currentPos) == ' ') {
-            return false;
-        } else {
-            current = readChar();
-            return true;
-        }
-    }
-    
-    private String readString() {
-        String s = "";
-        while ((!isLastArg()) && (readCharIfNotSpace())) {
-            s += current;
-        }
-
-        return s;
-    }
-
-    private AttributeValue<String> readQuotedString() throws ParseException {
-        while ((!isLastArg()) && ((current = readChar()) != '\'')) {
-            alreadyRead += current;
-        }
-        if (current == '\'') {
-            return new AttributeValue<>(alreadyRead, String.class);
-        } else {
-            throw new ParseException("Closing quote expected", currentPos);
-        }
-    }
-
-    private boolean accept(char c) {
-        if (input.charAt(currentPos) == c) {
-            currentPos++;
-            return true;
-        } else {
-            return false;
-        }
-    }
-
-    private boolean acceptSpace() { //exactly one space
-        if (accept(' ')) {
-            if (!isLastArg()) {
-                if (input.charAt(currentPos) == ' ') {
-                    return false;
-                } else {
-                    return true;
-                }
-            } else {
-                return true;
-            }
-        } else {
-            return false;
-        }
-    }
-
-    private AttributeValue<?> createNumericAttributeValue() throws ParseException {
-        AttributeValue<?> av;
-
-        try {
-            Double num = Double.valueOf(alreadyRead);
-            if (num.longValue() == num) {
-                av = new AttributeValue<>(num.longValue(), Long.class);
-            } else {
-//                av = new AttributeValue<>(num, Double.class);
-                //TODO
-                throw new UnsupportedOperationException("Non-integer values not supported yet + \"" + alreadyRead + "\"");
-            }
-        } catch (NumberFormatException e) {
-            throw new ParseException("Number expected", currentPos);
-        }
-
-        return av;
-    }
-
-    private int getInteger(String s) throws ParseException { //expect non-negative integer
-        int num;
-        try {
-            num = Integer.valueOf(s);
-        } catch (NumberFormatException e) {
-            throw new ParseException("Integer expected", currentPos);
-        }
-        return num;
-    }
-
-    private int readIntegerUntil(char until) throws ParseException {
-        alreadyRead += current;
-        String string = "";
-        while ((!isLastArg()) && (readCharIfNotSpace()) && (current != until)) {
-            string += current;
-            alreadyRead += current;
-        }
-
-        if ((isLastArg()) || (current == ' ')) {
-            throw new ParseException("Unexpected end of input", currentPos);
-        }
-
-        return getInteger(string);
-    }
-
-    private Constraint<?> createConstraint(AttributeValue<?> av, Operator operator) throws ParseException {
-        if (! isLastArg()) {
-            throw new ParseException("End of input expected", currentPos);
-        }
-
-        if (av == null) {
-            throw new ParseException("Failed to parse \'" + alreadyRead + "\'", currentPos);
-        }
-
-        if (operator == null) {
-            throw new ParseException("Unsupported Operator", currentPos);
-        }
-
-        return new Constraint<>(attributeName, av, operator);
-    }
-
-    private boolean isLastArg() {
-        if (currentPos < input.length()) {
-            return false;
-        }
-        return true;
-    }
-}
\ No newline at end of file
+                throw new ParseException(result.getError().getMessage(), result.getErrorPosition());
+        }
+    }
+
+    /**
+     * Parses the whole {@code src} without throwing on malformed input.
+     *
+     * @see #tryParse(String, CharSequence, int, int)
+     */
+    public static ParseResult tryParse(String attributeName, CharSequence src) {
+        return tryParse(attributeName, src, 0, src.length());
+    }
+
+    /**
+     * Same as {@link #parse(String, CharSequence, int, int)}, but malformed
+     * input is reported through the returned {@link ParseResult} instead of
+     * an exception. No exceptions are thrown or caught internally either, so
+     * rejecting bad input is as cheap as accepting good one.
+     *
+     * @throws IndexOutOfBoundsException if {@code [from, to)} is not a valid
+     * slice of {@code src}
+     */
+    public static ParseResult tryParse(String attributeName, CharSequence src, int from, int to) {
+        return tryParse(null, attributeName, src, from, to);
+    }
+
+    /**
+     * Same as {@link #tryParse(String, CharSequence, int, int)}, but the
+     * argument is read as the type the attribute has in {@code schema}.
+     *
+     * @param schema attribute types, may be {@code null}
+     * @see AttributeSchema
+     */
+    public static ParseResult tryParse(AttributeSchema schema, String attributeName, CharSequence src, int from, int to) {
+        if ((from < 0) || (from > to) || (to > src.length())) {
+            throw new IndexOutOfBoundsException("Invalid slice [" + from + ", " + to + ") of length " + src.length());
+        }
+
+        AttributeType type = (schema == null) ? null : schema.getType(attributeName);
+        ParserMetrics m = metrics;
+        if (m == null) {
+            return new Tokenizer(src, from, to, type).parse(attributeName);
+        }
+
+        long startTime = System.nanoTime();
+        ParseResult result = new Tokenizer(src, from, to, type).parse(attributeName);
+        m.record(result, to - from, System.nanoTime() - startTime);
+        return result;
+    }
+
+    /**
+     * Checks the expression against the same grammar as
+     * {@link #tryParse(String, CharSequence, int, int)} without building the
+     * constraint, only the operator and the argument spans are reported.
+     * Nothing is allocated for a valid expression once {@code result} has
+     * been used for one of the same shape, so this is the cheap way to admit
+     * or reject expressions before materializing them.
+     *
+     * @param result overwritten with the outcome
+     * @return whether the expression is valid
+     * @throws IndexOutOfBoundsException if {@code [from, to)} is not a valid
+     * slice of {@code src}
+     */
+    public static boolean validate(CharSequence src, int from, int to, ValidationResult result) {
+        return validate(null, null, src, from, to, result);
+    }
+
+    /**
+     * Same as {@link #validate(CharSequence, int, int, ValidationResult)},
+     * but the argument has to be of the type the attribute has in
+     * {@code schema}.
+     *
+     * @param schema attribute types, may be {@code null}
+     */
+    public static boolean validate(AttributeSchema schema, String attributeName, CharSequence src, int from, int to, ValidationResult result) {
+        if ((from < 0) || (from > to) || (to > src.length())) {
+            throw new IndexOutOfBoundsException("Invalid slice [" + from + ", " + to + ") of length " + src.length());
+        }
+
+        AttributeType type = ((schema == null) || (attributeName == null)) ? null : schema.getType(attributeName);
+        return result.tokenizer(src, from, to, type).validate(result);
+    }
+
+    /**
+     * Parses the UTF-8 encoded expression between the buffer's position and
+     * limit, heap or direct, without decoding it as a whole.
+     *
+     * @see #tryParse(AttributeSchema, String, ByteBuffer)
+     */
+    public static Constraint<?> parse(String attributeName, ByteBuffer src) throws ParseException, IndexOutOfBoundsException {
+        return unwrap(tryParse(null, attributeName, src));
+    }
+
+    public static ParseResult tryParse(String attributeName, ByteBuffer src) {
+        return tryParse(null, attributeName, src);
+    }
+
+    /**
+     * Parses the UTF-8 encoded expression between the buffer's position and
+     * limit straight from the bytes. Only the String values of the resulting
+     * constraint are decoded, operators, numbers and dates are read from the
+     * raw bytes. The buffer's position and limit are left untouched, error
+     * positions are buffer indexes.
+     *
+     * @param schema attribute types, may be {@code null}
+     */
+    public static ParseResult tryParse(AttributeSchema schema, String attributeName, ByteBuffer src) {
+        return tryParse(schema, attributeName, new Utf8Sequence(src), src.position(), src.limit());
+    }
+
+    /**
+     * Installs the metrics all subsequent parse calls are recorded into, or
+     * turns recording off if {@code metrics} is {@code null} (the default).
+     */
+    public static void setMetrics(ParserMetrics metrics) {
+        LangParser.metrics = metrics;
+    }
+
+    public static ParserMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,85 @@
+package cz.muni.fi.langparser;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of longs, the value of {@code #in} with integer arguments.
+ * Backed by a sorted array without duplicates, so it takes 8 bytes per
+ * element and {@link #contains(long)} is a binary search that does not box.
+ */
+public final class LongSet implements Comparable<LongSet> {
+
+    private final long[] values;
+
+    private LongSet(long[] values) {
+        this.values = values;
+    }
+
+    public static LongSet of(long... values) {
+        return of(values, values.length);
+    }
+
+    /**
+     * Builds the set from the first {@code count} values, which are copied.
+     */
+    static LongSet of(long[] values, int count) {
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if ((size == 0) || (sorted[i] != sorted[size - 1])) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return new LongSet((size == sorted.length) ? sorted : Arrays.copyOf(sorted, size));
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @return the {@code index}-th smallest element
+     */
+    public long get(int index) {
+        return values[index];
+    }
+
+    public long[] toArray() {
+        return values.clone();
+    }
+
+    /**
+     * Orders sets lexicographically by their sorted elements.
+     */
+    @Override
+    public int compareTo(LongSet o) {
+        int length = Math.min(values.length, o.values.length);
+        for (int i = 0; i < length; i++) {
+            if (values[i] != o.values[i]) {
+                return (values[i] < o.values[i]) ? -1 : 1;
+            }
+        }
+        return values.length - o.values.length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return (obj instanceof LongSet) && Arrays.equals(values, ((LongSet) obj).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,71 @@
+package cz.muni.fi.langparser;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Point-in-time copy of {@link ParserMetrics}. The histograms use the same
+ * power-of-two buckets as {@link ParserMetricsMXBean}.
+ */
+public final class MetricsSnapshot {
+
+    private final Map<String, Long> operatorCounts;
+    private final Map<ParseError, Long> failureCounts;
+    private final long[] latencyHistogram;
+    private final long[] inputLengthHistogram;
+
+    MetricsSnapshot(Map<String, Long> operatorCounts, Map<ParseError, Long> failureCounts,
+            long[] latencyHistogram, long[] inputLengthHistogram) {
+        this.operatorCounts = Collections.unmodifiableMap(operatorCounts);
+        this.failureCounts = Collections.unmodifiableMap(failureCounts);
+        this.latencyHistogram = latencyHistogram;
+        this.inputLengthHistogram = inputLengthHistogram;
+    }
+
+    /**
+     * @param operatorName operator as written, e.g. {@code #eq}
+     */
+    public long getCount(String operatorName) {
+        Long count = operatorCounts.get(operatorName);
+        return (count == null) ? 0 : count;
+    }
+
+    public long getFailureCount(ParseError error) {
+        return failureCounts.get(error);
+    }
+
+    /**
+     * @return counts keyed by operator name
+     */
+    public Map<String, Long> getOperatorCounts() {
+        return operatorCounts;
+    }
+
+    public Map<ParseError, Long> getFailureCounts() {
+        return failureCounts;
+    }
+
+    public long getSuccessCount() {
+        return sum(operatorCounts);
+    }
+
+    public long getFailureCount() {
+        return sum(failureCounts);
+    }
+
+    public long[] getLatencyHistogram() {
+        return latencyHistogram.clone();
+    }
+
+    public long[] getInputLengthHistogram() {
+        return inputLengthHistogram.clone();
+    }
+
+    private static long sum(Map<?, Long> counts) {
+        long sum = 0;
+        for (long count : counts.values()) {
+            sum += count;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,67 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+
+/**
+ * Operator as written in expressions, e.g. {@code #lt}, together with the
+ * {@link Operator} of the resulting constraints and the syntax of its
+ * arguments.
+ * <p>
+ * The counting tree has no operators for {@code #in}, {@code #suff} and
+ * {@code #contains}, their constraints carry the closest {@link Operator}
+ * only to be representable at all. Such definitions are not
+ * {@link #isNative() native}: code that evaluates constraints has to
+ * dispatch on the definition, see {@link ParseResult#getOperatorDefinition()}
+ * and {@link OperatorRegistry#definitionOf(Constraint)}, or reject them.
+ */
+public final class OperatorDefinition {
+
+    private final String name;
+    private final Operator operator;
+    private final ArgumentSyntax syntax;
+    private final boolean builtIn;
+    private final boolean nativeOperator;
+
+    OperatorDefinition(String name, Operator operator, ArgumentSyntax syntax, boolean builtIn, boolean nativeOperator) {
+        this.name = name;
+        this.operator = operator;
+        this.syntax = syntax;
+        this.builtIn = builtIn;
+        this.nativeOperator = nativeOperator;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public ArgumentSyntax getSyntax() {
+        return syntax;
+    }
+
+    /**
+     * @return whether this is one of the operators the parser ships with,
+     * which cannot be unregistered
+     */
+    public boolean isBuiltIn() {
+        return builtIn;
+    }
+
+    /**
+     * @return whether {@link #getOperator()} fully describes what the
+     * constraints mean, so that they can be evaluated by anything that only
+     * knows {@link Operator}, e.g. a counting tree
+     */
+    public boolean isNative() {
+        return nativeOperator;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + operator + ", " + syntax + ")";
+    }
+}
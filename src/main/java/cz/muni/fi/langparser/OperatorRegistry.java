@@ -0,0 +1,170 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operators understood by {@link LangParser}. Besides the built-in ones,
+ * further operators can be registered with the {@link Operator} their
+ * constraints get and the syntax of their arguments, e.g.
+ * <pre>
+ * OperatorRegistry.getDefault().register("#is", Operator.EQUALS, ArgumentSyntax.STRING);
+ * </pre>
+ * An operator whose meaning its {@link Operator} does not capture, e.g. a
+ * {@code #ne} that can only be represented as {@link Operator#EQUALS}, has to
+ * be registered as not {@link OperatorDefinition#isNative() native}, so that
+ * nothing evaluates its constraints as equalities.
+ * Lookups go through an immutable {@link OperatorTrie} that is rebuilt on
+ * every change, so parsing never locks and registering is meant to happen
+ * at startup. Built-in operators can be neither replaced nor unregistered,
+ * other parts of the library rely on them. The registry is thread-safe.
+ */
+public final class OperatorRegistry {
+
+    private static final OperatorRegistry DEFAULT = new OperatorRegistry();
+
+    private final Map<String, OperatorDefinition> definitions = new LinkedHashMap<>();
+    private volatile OperatorTrie trie;
+
+    private OperatorRegistry() {
+        builtIn("#lt", Operator.LESS_THAN, ArgumentSyntax.NUMBER, true);
+        builtIn("#le", Operator.LESS_THAN_OR_EQUAL_TO, ArgumentSyntax.NUMBER, true);
+        builtIn("#gt", Operator.GREATER_THAN, ArgumentSyntax.NUMBER, true);
+        builtIn("#ge", Operator.GREATER_THAN_OR_EQUAL_TO, ArgumentSyntax.NUMBER, true);
+        builtIn("#eq", Operator.EQUALS, ArgumentSyntax.ANY, true);
+        builtIn("#rng", Operator.RANGE, ArgumentSyntax.NUMBER_RANGE, true);
+        builtIn("#pref", Operator.PREFIX, ArgumentSyntax.STRING, true);
+        //the counting tree has no operators for these, the closest one is only a placeholder
+        builtIn("#in", Operator.EQUALS, ArgumentSyntax.LIST, false);
+        builtIn("#suff", Operator.PREFIX, ArgumentSyntax.SUFFIX, false);
+        builtIn("#contains", Operator.EQUALS, ArgumentSyntax.SUBSTRING, false);
+        trie = new OperatorTrie(definitions.values());
+    }
+
+    private void builtIn(String name, Operator operator, ArgumentSyntax syntax, boolean nativeOperator) {
+        definitions.put(name, new OperatorDefinition(name, operator, syntax, true, nativeOperator));
+    }
+
+    /**
+     * @return the registry all parsing goes through
+     */
+    public static OperatorRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registers a native operator, i.e. one whose constraints mean exactly
+     * their {@link Operator}.
+     *
+     * @param name printable ASCII without spaces, e.g. {@code #is}
+     * @throws IllegalArgumentException if the name is not valid or already
+     * registered
+     */
+    public OperatorRegistry register(String name, Operator operator, ArgumentSyntax syntax) {
+        return register(name, operator, syntax, true);
+    }
+
+    /**
+     * @param name printable ASCII without spaces, e.g. {@code #ne}
+     * @param nativeOperator whether the constraints mean exactly their
+     * {@link Operator}, if not the operator is only a placeholder and
+     * consumers have to dispatch on the definition
+     * @throws IllegalArgumentException if the name is not valid or already
+     * registered
+     */
+    public synchronized OperatorRegistry register(String name, Operator operator, ArgumentSyntax syntax, boolean nativeOperator) {
+        if ((operator == null) || (syntax == null)) {
+            throw new NullPointerException();
+        }
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Empty operator name");
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if ((name.charAt(i) <= ' ') || (name.charAt(i) > '~')) {
+                throw new IllegalArgumentException("Invalid operator name " + name);
+            }
+        }
+        if (definitions.containsKey(name)) {
+            throw new IllegalArgumentException("Operator " + name + " already registered");
+        }
+
+        definitions.put(name, new OperatorDefinition(name, operator, syntax, false, nativeOperator));
+        trie = new OperatorTrie(definitions.values());
+        return this;
+    }
+
+    /**
+     * @return whether the operator was registered
+     * @throws IllegalArgumentException if the operator is built-in
+     */
+    public synchronized boolean unregister(String name) {
+        OperatorDefinition definition = definitions.get(name);
+        if ((definition != null) && definition.isBuiltIn()) {
+            throw new IllegalArgumentException("Built-in operator " + name + " cannot be unregistered");
+        }
+        if (definitions.remove(name) == null) {
+            return false;
+        }
+        trie = new OperatorTrie(definitions.values());
+        return true;
+    }
+
+    /**
+     * @return the operator or {@code null} if it is not registered
+     */
+    public OperatorDefinition get(String name) {
+        return trie.lookup(name, 0, name.length());
+    }
+
+    public synchronized Collection<OperatorDefinition> getDefinitions() {
+        return Collections.unmodifiableList(new ArrayList<>(definitions.values()));
+    }
+
+    /**
+     * Recovers the definition a constraint was parsed with, for code that
+     * only has the constraint, e.g. one read from a snapshot. Constraints of
+     * non-native operators are recognized by their value type, any other
+     * constraint gets the built-in definition of its {@link Operator}.
+     * Constraints of registered operators cannot be told apart from built-in
+     * ones this way, not even non-native ones, use
+     * {@link ParseResult#getOperatorDefinition()} for them.
+     */
+    public OperatorDefinition definitionOf(Constraint<?> constraint) {
+        Class<?> type = constraint.getAttributeValue().getType();
+        if ((type == LongSet.class) || (type == StringSet.class)) {
+            return get("#in");
+        } else if (type == Suffix.class) {
+            return get("#suff");
+        } else if (type == Substring.class) {
+            return get("#contains");
+        }
+
+        switch (constraint.getOperator()) {
+            case LESS_THAN:
+                return get("#lt");
+            case LESS_THAN_OR_EQUAL_TO:
+                return get("#le");
+            case GREATER_THAN:
+                return get("#gt");
+            case GREATER_THAN_OR_EQUAL_TO:
+                return get("#ge");
+            case EQUALS:
+                return get("#eq");
+            case RANGE:
+                return get("#rng");
+            case PREFIX:
+                return get("#pref");
+            default:
+                throw new IllegalArgumentException("Unknown operator " + constraint.getOperator());
+        }
+    }
+
+    OperatorDefinition lookup(CharSequence input, int from, int to) {
+        return trie.lookup(input, from, to);
+    }
+}
@@ -0,0 +1,87 @@
+package cz.muni.fi.langparser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable trie over operator names, resolves the operator token in place
+ * without allocating. Each node keeps its outgoing characters sorted, so a
+ * step is a binary search over a few chars.
+ */
+final class OperatorTrie {
+
+    private final char[][] labels;
+    private final int[][] targets;
+    private final OperatorDefinition[] definitions;
+
+    OperatorTrie(Collection<OperatorDefinition> operators) {
+        List<TreeMap<Character, Integer>> nodes = new ArrayList<>();
+        List<OperatorDefinition> terminals = new ArrayList<>();
+        nodes.add(new TreeMap<Character, Integer>());
+        terminals.add(null);
+
+        for (OperatorDefinition definition : operators) {
+            String name = definition.getName();
+            int node = 0;
+            for (int i = 0; i < name.length(); i++) {
+                Integer next = nodes.get(node).get(name.charAt(i));
+                if (next == null) {
+                    next = nodes.size();
+                    nodes.get(node).put(name.charAt(i), next);
+                    nodes.add(new TreeMap<Character, Integer>());
+                    terminals.add(null);
+                }
+                node = next;
+            }
+            terminals.set(node, definition);
+        }
+
+        labels = new char[nodes.size()][];
+        targets = new int[nodes.size()][];
+        for (int node = 0; node < nodes.size(); node++) {
+            Map<Character, Integer> transitions = nodes.get(node);
+            labels[node] = new char[transitions.size()];
+            targets[node] = new int[transitions.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                labels[node][i] = transition.getKey();
+                targets[node][i] = transition.getValue();
+                i++;
+            }
+        }
+        definitions = terminals.toArray(new OperatorDefinition[terminals.size()]);
+    }
+
+    /**
+     * @return the operator named {@code input[from, to)} or {@code null}
+     */
+    OperatorDefinition lookup(CharSequence input, int from, int to) {
+        int node = 0;
+        for (int i = from; i < to; i++) {
+            char[] chars = labels[node];
+            char c = input.charAt(i);
+            int low = 0;
+            int high = chars.length - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (chars[mid] < c) {
+                    low = mid + 1;
+                } else if (chars[mid] > c) {
+                    high = mid - 1;
+                } else {
+                    found = mid;
+                    break;
+                }
+            }
+            if (found < 0) {
+                return null;
+            }
+            node = targets[node][found];
+        }
+        return definitions[node];
+    }
+}
@@ -0,0 +1,18 @@
+package cz.muni.fi.langparser;
+
+import java.util.List;
+
+/**
+ * Receives the parsed requests of a {@link ParsePipeline}, typically to
+ * register their constraints. Called from the pipeline's worker threads,
+ * concurrently if there is more than one.
+ */
+public interface ParseBatchHandler {
+
+    /**
+     * @param batch parsed requests in the order they were taken from the
+     * queue, each with its {@link PipelineRequest#getResult() result} or
+     * {@link PipelineRequest#getFailure() failure}
+     */
+    void onBatch(List<PipelineRequest> batch);
+}
@@ -0,0 +1,46 @@
+package cz.muni.fi.langparser;
+
+/**
+ * Reasons an expression can be rejected for, see {@link ParseResult}.
+ */
+public enum ParseError {
+
+    UNSUPPORTED_OPERATOR("Unsupported Operator"),
+    SPACE_EXPECTED("Exactly one space expected"),
+    UNEXPECTED_SPACE("No space expected"),
+    /**
+     * The expression ends where an argument should start.
+     */
+    MISSING_ARGUMENT("Argument expected"),
+    NUMBER_EXPECTED("Number expected"),
+    INTEGER_EXPECTED("Integer expected"),
+    /**
+     * An integer does not fit into a long or a decimal into a double.
+     */
+    NUMBER_OUT_OF_RANGE("Number out of range"),
+    /**
+     * The expression ends in the middle of an argument, e.g. a date.
+     */
+    UNEXPECTED_END_OF_INPUT("Unexpected end of input"),
+    /**
+     * A date or time literal has a wrong format or a field out of range.
+     */
+    INVALID_DATE_TIME("Invalid date or time"),
+    CLOSING_QUOTE_EXPECTED("Closing quote expected"),
+    TYPE_MISMATCH("Type mismatch"),
+    END_OF_INPUT_EXPECTED("End of input expected"),
+    /**
+     * The argument is well-formed, but its type is not supported yet.
+     */
+    UNSUPPORTED_VALUE("Value type not supported yet");
+
+    private final String message;
+
+    private ParseError(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,356 @@
+package cz.muni.fi.langparser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Parses expressions off the submitting threads. Requests go into a bounded
+ * queue, a fixed pool of workers takes them in batches of up to
+ * {@code batchSize}, parses them and hands each batch to a
+ * {@link ParseBatchHandler}. A full queue pushes back on the submitters:
+ * {@link #offer(String, CharSequence, Object)} fails right away and
+ * {@link #submit(String, CharSequence, Object)} waits. Expressions are copied
+ * on submission, so the caller may reuse its buffers right away.
+ * <p>
+ * An exception thrown by the handler, or an error thrown while parsing, is
+ * passed to the failure handler, the worker goes on with the next batch.
+ * <p>
+ * Queue depth, throughput and latency, from submission until the request is
+ * parsed, are available for monitoring. The pipeline is thread-safe.
+ */
+public class ParsePipeline {
+
+    /**
+     * Stop marker, every worker exits on the first one it takes.
+     */
+    private static final PipelineRequest POISON = new PipelineRequest("", "", null);
+
+    private final BlockingQueue<PipelineRequest> queue;
+    private final int batchSize;
+    private final ParseBatchHandler handler;
+    private final Thread.UncaughtExceptionHandler failureHandler;
+    private final int workerCount;
+    private final ExecutorService workers;
+    /**
+     * Held shared while enqueueing and exclusively to shut down, so that
+     * every accepted request is queued before the stop markers.
+     */
+    private final ReadWriteLock enqueueLock = new ReentrantReadWriteLock();
+    private boolean shutdown;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong parsedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong failedBatchCount = new AtomicLong();
+    private final AtomicLong failedRequestCount = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    /**
+     * @param queueCapacity maximum number of requests waiting to be parsed
+     * @param workerCount number of parsing threads
+     * @param batchSize maximum number of requests per handler call
+     * @param handler receives the parsed requests
+     */
+    public ParsePipeline(int queueCapacity, int workerCount, int batchSize, ParseBatchHandler handler) {
+        this(queueCapacity, workerCount, batchSize, handler, null);
+    }
+
+    /**
+     * @param failureHandler receives the exceptions thrown by
+     * {@code handler}, if {@code null} they go to the worker thread's
+     * uncaught exception handler
+     */
+    public ParsePipeline(int queueCapacity, int workerCount, int batchSize, ParseBatchHandler handler,
+            Thread.UncaughtExceptionHandler failureHandler) {
+        if ((queueCapacity <= 0) || (workerCount <= 0) || (batchSize <= 0)) {
+            throw new IllegalArgumentException("Queue capacity, worker count and batch size must be positive");
+        }
+        if (handler == null) {
+            throw new NullPointerException();
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.handler = handler;
+        this.failureHandler = failureHandler;
+        this.workerCount = workerCount;
+        this.workers = Executors.newFixedThreadPool(workerCount, new WorkerThreadFactory());
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(new Worker());
+        }
+    }
+
+    /**
+     * Enqueues the expression unless the queue is full.
+     *
+     * @param tag anything the handler needs to match the result, may be
+     * {@code null}
+     * @return whether the request was accepted
+     * @throws NullPointerException if the attribute name or the expression
+     * is {@code null}
+     * @throws IllegalStateException if the pipeline has been shut down
+     */
+    public boolean offer(String attributeName, CharSequence expression, Object tag) {
+        PipelineRequest request = new PipelineRequest(attributeName, expression, tag);
+        enqueueLock.readLock().lock();
+        try {
+            checkRunning();
+            if (queue.offer(request)) {
+                return true;
+            }
+        } finally {
+            enqueueLock.readLock().unlock();
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Enqueues the expression, waiting for room in the queue at most the
+     * given time.
+     *
+     * @return whether the request was accepted
+     * @throws NullPointerException if the attribute name or the expression
+     * is {@code null}
+     * @throws IllegalStateException if the pipeline has been shut down
+     */
+    public boolean offer(String attributeName, CharSequence expression, Object tag, long timeout, TimeUnit unit) throws InterruptedException {
+        PipelineRequest request = new PipelineRequest(attributeName, expression, tag);
+        enqueueLock.readLock().lock();
+        try {
+            checkRunning();
+            if (queue.offer(request, timeout, unit)) {
+                return true;
+            }
+        } finally {
+            enqueueLock.readLock().unlock();
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Enqueues the expression, waiting for room in the queue as long as it
+     * takes.
+     *
+     * @throws NullPointerException if the attribute name or the expression
+     * is {@code null}
+     * @throws IllegalStateException if the pipeline has been shut down
+     */
+    public void submit(String attributeName, CharSequence expression, Object tag) throws InterruptedException {
+        PipelineRequest request = new PipelineRequest(attributeName, expression, tag);
+        enqueueLock.readLock().lock();
+        try {
+            checkRunning();
+            queue.put(request);
+        } finally {
+            enqueueLock.readLock().unlock();
+        }
+    }
+
+    private void checkRunning() {
+        if (shutdown) {
+            throw new IllegalStateException("Pipeline shut down");
+        }
+    }
+
+    /**
+     * Stops accepting requests. Every request accepted before is still parsed
+     * and handed over. Waits for submitters blocked on a full queue and then
+     * for room in the queue to enqueue a stop marker per worker, so it must
+     * not be called from the handler.
+     */
+    public void shutdown() {
+        enqueueLock.writeLock().lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+        } finally {
+            enqueueLock.writeLock().unlock();
+        }
+
+        boolean interrupted = false;
+        for (int i = 0; i < workerCount; i++) {
+            while (true) {
+                try {
+                    queue.put(POISON);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        workers.shutdown();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return whether all queued requests have been handed over within the
+     * given time after {@link #shutdown()}
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * @return number of requests waiting to be parsed
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getRemainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    /**
+     * @return number of requests turned away because the queue was full
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getParsedCount() {
+        return parsedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * @return number of batches the handler threw an exception for, or
+     * parsing an error, the pipeline keeps running regardless
+     */
+    public long getFailedBatchCount() {
+        return failedBatchCount.get();
+    }
+
+    /**
+     * @return number of requests parsing threw an unexpected exception for,
+     * see {@link PipelineRequest#getFailure()}
+     */
+    public long getFailedRequestCount() {
+        return failedRequestCount.get();
+    }
+
+    /**
+     * @return mean time from submission until parsed, in nanoseconds
+     */
+    public long getMeanLatencyNanos() {
+        long parsed = parsedCount.get();
+        return (parsed == 0) ? 0 : totalLatency.get() / parsed;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatency.get();
+    }
+
+    private void process(List<PipelineRequest> batch) {
+        for (PipelineRequest request : batch) {
+            try {
+                request.setResult(LangParser.tryParse(request.getAttributeName(), request.getExpression()));
+            } catch (RuntimeException e) {
+                request.setFailure(e);
+                failedRequestCount.incrementAndGet();
+            }
+
+            long latency = System.nanoTime() - request.getSubmitTime();
+            totalLatency.addAndGet(latency);
+            long max;
+            while ((latency > (max = maxLatency.get())) && !maxLatency.compareAndSet(max, latency)) {
+                //retry
+            }
+        }
+        parsedCount.addAndGet(batch.size());
+        batchCount.incrementAndGet();
+        handler.onBatch(batch);
+    }
+
+    private void reportFailure(Throwable e) {
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler target = (failureHandler != null) ? failureHandler : thread.getUncaughtExceptionHandler();
+        try {
+            target.uncaughtException(thread, e);
+        } catch (RuntimeException ignored) {
+            //nothing left to report it to, keep the worker alive
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            while (true) {
+                PipelineRequest first;
+                try {
+                    first = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (first == POISON) {
+                    return;
+                }
+
+                List<PipelineRequest> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                //stop markers drained along belong to the other workers too
+                int stops = 0;
+                for (int i = batch.size() - 1; i > 0; i--) {
+                    if (batch.get(i) == POISON) {
+                        batch.remove(i);
+                        stops++;
+                    }
+                }
+                try {
+                    process(batch);
+                } catch (Throwable e) {
+                    failedBatchCount.incrementAndGet();
+                    reportFailure(e);
+                }
+
+                if (stops > 0) {
+                    for (int i = 1; i < stops; i++) {
+                        try {
+                            queue.put(POISON);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+        private final int poolNumber = POOL_NUMBER.incrementAndGet();
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "parse-pipeline-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
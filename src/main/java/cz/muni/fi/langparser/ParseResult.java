@@ -0,0 +1,75 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+
+/**
+ * Outcome of {@link LangParser#tryParse(String, CharSequence, int, int)},
+ * either the parsed constraint or the error the expression was rejected with
+ * and its position.
+ */
+public final class ParseResult {
+
+    private final Constraint<?> constraint;
+    private final OperatorDefinition operator;
+    private final ParseError error;
+    private final int errorPosition;
+
+    private ParseResult(Constraint<?> constraint, OperatorDefinition operator, ParseError error, int errorPosition) {
+        this.constraint = constraint;
+        this.operator = operator;
+        this.error = error;
+        this.errorPosition = errorPosition;
+    }
+
+    static ParseResult success(Constraint<?> constraint, OperatorDefinition operator) {
+        return new ParseResult(constraint, operator, null, -1);
+    }
+
+    static ParseResult failure(ParseError error, int errorPosition) {
+        return new ParseResult(null, null, error, errorPosition);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return the parsed constraint or {@code null} if parsing failed
+     */
+    public Constraint<?> getConstraint() {
+        return constraint;
+    }
+
+    /**
+     * @return the operator the constraint was parsed with or {@code null} if
+     * parsing failed. Unlike the constraint's {@code Operator} it tells all
+     * operators apart, dispatch on it if the definition is not
+     * {@link OperatorDefinition#isNative() native}.
+     */
+    public OperatorDefinition getOperatorDefinition() {
+        return operator;
+    }
+
+    /**
+     * @return the error or {@code null} if parsing succeeded
+     */
+    public ParseError getError() {
+        return error;
+    }
+
+    /**
+     * @return offset of the error in the parsed input or -1 if parsing
+     * succeeded
+     */
+    public int getErrorPosition() {
+        return errorPosition;
+    }
+
+    @Override
+    public String toString() {
+        if (isSuccess()) {
+            return "ParseResult{" + constraint + "}";
+        }
+        return "ParseResult{" + error.getMessage() + " at " + errorPosition + "}";
+    }
+}
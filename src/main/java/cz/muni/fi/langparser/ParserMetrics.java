@@ -0,0 +1,144 @@
+package cz.muni.fi.langparser;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters of what {@link LangParser} does, i.e. parsed expressions per
+ * operator as written (so {@code #in} is not counted as {@code #eq}),
+ * rejected ones per {@link ParseError} and histograms of parse
+ * time and input length. Metrics are collected only while installed by
+ * {@link LangParser#setMetrics(ParserMetrics)}, otherwise the parser does
+ * not even read the clock.
+ * <p>
+ * All counters are striped per thread, so recording never serializes the
+ * parsing threads. The values can be read through {@link #snapshot()} or
+ * over JMX after {@link #register()}.
+ */
+public class ParserMetrics implements ParserMetricsMXBean {
+
+    public static final String OBJECT_NAME = "cz.muni.fi.langparser:type=ParserMetrics";
+
+    private static final ParseError[] ERRORS = ParseError.values();
+    private static final int LATENCY_BUCKETS = 64;
+    private static final int LENGTH_BUCKETS = 32;
+
+    private final ConcurrentMap<String, StripedCounters> operators = new ConcurrentHashMap<>();
+    private final StripedCounters failures = new StripedCounters(ERRORS.length);
+    private final StripedCounters latencies = new StripedCounters(LATENCY_BUCKETS);
+    private final StripedCounters lengths = new StripedCounters(LENGTH_BUCKETS);
+
+    void record(ParseResult result, int inputLength, long nanos) {
+        if (result.isSuccess()) {
+            String name = result.getOperatorDefinition().getName();
+            StripedCounters counter = operators.get(name);
+            if (counter == null) {
+                counter = new StripedCounters(1);
+                StripedCounters existing = operators.putIfAbsent(name, counter);
+                if (existing != null) {
+                    counter = existing;
+                }
+            }
+            counter.increment(0);
+        } else {
+            failures.increment(result.getError().ordinal());
+        }
+        latencies.increment(bucket(nanos, LATENCY_BUCKETS));
+        lengths.increment(bucket(inputLength, LENGTH_BUCKETS));
+    }
+
+    private static int bucket(long value, int buckets) {
+        return Math.min(64 - Long.numberOfLeadingZeros(value), buckets - 1);
+    }
+
+    @Override
+    public long getSuccessCount() {
+        long sum = 0;
+        for (StripedCounters counter : operators.values()) {
+            sum += counter.get(0);
+        }
+        return sum;
+    }
+
+    @Override
+    public long getFailureCount() {
+        return sum(failures.getAll());
+    }
+
+    @Override
+    public Map<String, Long> getOperatorCounts() {
+        return operatorCounts();
+    }
+
+    /**
+     * Counts of all currently registered operators, including zero ones, and
+     * of operators unregistered since.
+     */
+    private Map<String, Long> operatorCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (OperatorDefinition definition : OperatorRegistry.getDefault().getDefinitions()) {
+            counts.put(definition.getName(), 0L);
+        }
+        for (Map.Entry<String, StripedCounters> entry : operators.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get(0));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (ParseError error : ERRORS) {
+            counts.put(error.name(), failures.get(error.ordinal()));
+        }
+        return counts;
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        return latencies.getAll();
+    }
+
+    @Override
+    public long[] getInputLengthHistogram() {
+        return lengths.getAll();
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<ParseError, Long> failureCounts = new LinkedHashMap<>();
+        for (ParseError error : ERRORS) {
+            failureCounts.put(error, failures.get(error.ordinal()));
+        }
+
+        return new MetricsSnapshot(operatorCounts(), failureCounts, latencies.getAll(), lengths.getAll());
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server under
+     * {@link #OBJECT_NAME}.
+     */
+    public ObjectName register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        server.registerMBean(this, name);
+        return name;
+    }
+
+    public void unregister() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
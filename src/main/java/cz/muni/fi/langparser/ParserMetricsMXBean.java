@@ -0,0 +1,36 @@
+package cz.muni.fi.langparser;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link ParserMetrics}.
+ */
+public interface ParserMetricsMXBean {
+
+    long getSuccessCount();
+
+    long getFailureCount();
+
+    /**
+     * @return number of successfully parsed expressions per operator name,
+     * e.g. {@code #eq}
+     */
+    Map<String, Long> getOperatorCounts();
+
+    /**
+     * @return number of rejected expressions per {@link ParseError}
+     */
+    Map<String, Long> getFailureCounts();
+
+    /**
+     * @return counts of parse times, bucket {@code i} holds the calls that
+     * took less than {@code 2^i} nanoseconds (and at least {@code 2^(i-1)})
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * @return counts of input lengths, bucket {@code i} holds the expressions
+     * shorter than {@code 2^i} characters (and at least {@code 2^(i-1)} long)
+     */
+    long[] getInputLengthHistogram();
+}
@@ -0,0 +1,69 @@
+package cz.muni.fi.langparser;
+
+/**
+ * Expression submitted to a {@link ParsePipeline}, together with an opaque
+ * tag of the submitter, e.g. the connection to reply to.
+ */
+public final class PipelineRequest {
+
+    private final String attributeName;
+    private final String expression;
+    private final Object tag;
+    private final long submitTime;
+    //set by the worker before the handler sees it
+    private ParseResult result;
+    private RuntimeException failure;
+
+    PipelineRequest(String attributeName, CharSequence expression, Object tag) {
+        if ((attributeName == null) || (expression == null)) {
+            throw new NullPointerException();
+        }
+        this.attributeName = attributeName;
+        this.expression = expression.toString();
+        this.tag = tag;
+        this.submitTime = System.nanoTime();
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    /**
+     * @return copy of the expression taken at submission
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    public Object getTag() {
+        return tag;
+    }
+
+    /**
+     * @return the outcome of parsing, {@code null} until the request has
+     * been parsed
+     */
+    public ParseResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return the unexpected exception parsing failed with, in which case
+     * there is no {@link #getResult() result}, or {@code null}
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    long getSubmitTime() {
+        return submitTime;
+    }
+
+    void setResult(ParseResult result) {
+        this.result = result;
+    }
+
+    void setFailure(RuntimeException failure) {
+        this.failure = failure;
+    }
+}
@@ -0,0 +1,63 @@
+package cz.muni.fi.langparser;
+
+import java.nio.charset.Charset;
+
+/**
+ * Layout of the binary constraint snapshot shared by {@link SnapshotWriter}
+ * and {@link SnapshotReader}. All numbers are big-endian.
+ * <pre>
+ * int magic, int version
+ * int operatorCount, operatorCount * string   operator names
+ * int attributeCount, attributeCount * string attribute names
+ * int constraintCount, constraintCount * {
+ *     int attributeIndex, byte operatorIndex, byte valueTag, payload
+ * }
+ * long crc32 of everything above
+ * </pre>
+ * A string is an int byte length followed by UTF-8 bytes. Payloads are
+ * primitive: a long for Long and Date (epoch millis), a double for Double,
+ * two of them for the ranges, an int for Time (millis of day), a string
+ * for String, Suffix and Substring and an int count followed by the
+ * elements for the sets.
+ * <p>
+ * The version is bumped whenever a value tag is added, readers accept any
+ * version up to their own but only the tags that existed in it.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x4E474C50; //"NGLP"
+    static final int VERSION = 3;
+    static final int TRAILER_LENGTH = 8;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte STRING = 3;
+    static final byte DATE = 4;
+    static final byte TIME = 5;
+    static final byte LONG_RANGE = 6;
+    static final byte DOUBLE_RANGE = 7;
+    static final byte DATE_RANGE = 8;
+    static final byte TIME_RANGE = 9;
+    static final byte LONG_SET = 10;
+    static final byte STRING_SET = 11;
+    static final byte SUFFIX = 12;
+    static final byte SUBSTRING = 13;
+
+    private SnapshotFormat() {
+    }
+
+    /**
+     * @return the highest value tag a snapshot of the version may contain
+     */
+    static byte lastTag(int version) {
+        switch (version) {
+            case 1:
+                return TIME_RANGE;
+            case 2:
+                return STRING_SET;
+            default:
+                return SUBSTRING;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.AttributeValue;
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.LongRange;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Restores constraints written by {@link SnapshotWriter} from a memory-mapped
+ * file. The checksum is verified before anything is decoded, a damaged or
+ * incompatible snapshot is reported as {@link CorruptSnapshotException} so
+ * that the caller can fall back to parsing the textual subscriptions.
+ */
+public final class SnapshotReader {
+
+    private static final int CHECKSUM_CHUNK = 64 * 1024;
+
+    private SnapshotReader() {
+    }
+
+    public static List<Constraint<?>> read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return read(raf.getChannel());
+        }
+    }
+
+    /**
+     * Reads the snapshot stored in the whole channel.
+     */
+    public static List<Constraint<?>> read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new CorruptSnapshotException("Snapshot too large: " + size);
+        }
+        if (size < 8 + SnapshotFormat.TRAILER_LENGTH) {
+            throw new CorruptSnapshotException("Snapshot truncated");
+        }
+
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        return read(buffer);
+    }
+
+    /**
+     * Reads the snapshot stored between the buffer's position and limit.
+     */
+    public static List<Constraint<?>> read(ByteBuffer buffer) throws CorruptSnapshotException {
+        ByteBuffer body = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (body.remaining() < 8 + SnapshotFormat.TRAILER_LENGTH) {
+            throw new CorruptSnapshotException("Snapshot truncated");
+        }
+        body.limit(body.limit() - SnapshotFormat.TRAILER_LENGTH);
+
+        if (body.getInt(body.position()) != SnapshotFormat.MAGIC) {
+            throw new CorruptSnapshotException("Not a constraint snapshot");
+        }
+        int version = body.getInt(body.position() + 4);
+        if ((version < 1) || (version > SnapshotFormat.VERSION)) {
+            throw new CorruptSnapshotException("Unsupported snapshot version " + version);
+        }
+        if (checksum(body.duplicate()) != buffer.duplicate().order(ByteOrder.BIG_ENDIAN).getLong(body.limit())) {
+            throw new CorruptSnapshotException("Snapshot checksum mismatch");
+        }
+
+        try {
+            body.position(body.position() + 8);
+            return readConstraints(body, version);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new CorruptSnapshotException("Malformed snapshot", e);
+        }
+    }
+
+    private static long checksum(ByteBuffer body) {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[Math.min(CHECKSUM_CHUNK, body.remaining())];
+        while (body.hasRemaining()) {
+            int length = Math.min(chunk.length, body.remaining());
+            body.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+        return crc.getValue();
+    }
+
+    private static List<Constraint<?>> readConstraints(ByteBuffer body, int version) throws CorruptSnapshotException {
+        Operator[] operators = new Operator[checkCount(body.getInt(), body)];
+        for (int i = 0; i < operators.length; i++) {
+            operators[i] = Operator.valueOf(readString(body));
+        }
+
+        String[] attributes = new String[checkCount(body.getInt(), body)];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = readString(body);
+        }
+
+        int count = checkCount(body.getInt(), body);
+        List<Constraint<?>> constraints = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String attributeName = attributes[body.getInt()];
+            Operator operator = operators[body.get()];
+            constraints.add(new Constraint<>(attributeName, readValue(body, version), operator));
+        }
+
+        if (body.hasRemaining()) {
+            throw new CorruptSnapshotException("Unexpected data after the last constraint");
+        }
+        return constraints;
+    }
+
+    private static AttributeValue<?> readValue(ByteBuffer body, int version) throws CorruptSnapshotException {
+        byte tag = body.get();
+        if (tag > SnapshotFormat.lastTag(version)) {
+            throw new CorruptSnapshotException("Unknown value tag " + tag + " in version " + version);
+        }
+        switch (tag) {
+            case SnapshotFormat.LONG:
+                return new AttributeValue<>(body.getLong(), Long.class);
+            case SnapshotFormat.DOUBLE:
+                return new AttributeValue<>(body.getDouble(), Double.class);
+            case SnapshotFormat.STRING:
+                return new AttributeValue<>(readString(body), String.class);
+            case SnapshotFormat.DATE:
+                return new AttributeValue<>(new Date(body.getLong()), Date.class);
+            case SnapshotFormat.TIME:
+                return new AttributeValue<>(new Time(body.getInt()), Time.class);
+            case SnapshotFormat.LONG_RANGE:
+                return new AttributeValue<>(new LongRange(body.getLong(), body.getLong()), LongRange.class);
+            case SnapshotFormat.DOUBLE_RANGE:
+                return new AttributeValue<>(new DoubleRange(body.getDouble(), body.getDouble()), DoubleRange.class);
+            case SnapshotFormat.DATE_RANGE:
+                return new AttributeValue<>(new DateRange(body.getLong(), body.getLong()), DateRange.class);
+            case SnapshotFormat.TIME_RANGE:
+                return new AttributeValue<>(new TimeRange(new Time(body.getInt()), new Time(body.getInt())), TimeRange.class);
+            case SnapshotFormat.LONG_SET:
+                long[] longs = new long[checkCount(body.getInt(), body)];
+                for (int i = 0; i < longs.length; i++) {
+                    longs[i] = body.getLong();
+                }
+                return new AttributeValue<>(LongSet.of(longs), LongSet.class);
+            case SnapshotFormat.STRING_SET:
+                String[] strings = new String[checkCount(body.getInt(), body)];
+                for (int i = 0; i < strings.length; i++) {
+                    strings[i] = readString(body);
+                }
+                return new AttributeValue<>(StringSet.of(strings), StringSet.class);
+            case SnapshotFormat.SUFFIX:
+                return new AttributeValue<>(new Suffix(readString(body)), Suffix.class);
+            case SnapshotFormat.SUBSTRING:
+                return new AttributeValue<>(new Substring(readString(body)), Substring.class);
+            default:
+                throw new CorruptSnapshotException("Unknown value tag " + tag);
+        }
+    }
+
+    private static String readString(ByteBuffer body) throws CorruptSnapshotException {
+        byte[] bytes = new byte[checkCount(body.getInt(), body)];
+        body.get(bytes);
+        return new String(bytes, SnapshotFormat.UTF_8);
+    }
+
+    /**
+     * Guards against allocating huge arrays for a garbage count.
+     */
+    private static int checkCount(int count, ByteBuffer body) throws CorruptSnapshotException {
+        if ((count < 0) || (count > body.remaining())) {
+            throw new CorruptSnapshotException("Invalid count " + count);
+        }
+        return count;
+    }
+}
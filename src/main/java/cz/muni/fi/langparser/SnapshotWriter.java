@@ -0,0 +1,150 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.AttributeValue;
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.LongRange;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes parsed constraints into the compact binary format described in
+ * {@link SnapshotFormat}, so that they can be restored by
+ * {@link SnapshotReader} without parsing any text.
+ */
+public final class SnapshotWriter {
+
+    private SnapshotWriter() {
+    }
+
+    public static void write(Collection<? extends Constraint<?>> constraints, File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            write(constraints, out);
+        }
+    }
+
+    /**
+     * Writes the snapshot, {@code out} is flushed but not closed.
+     *
+     * @throws IllegalArgumentException if a constraint holds a value of a
+     * type the parser does not produce
+     */
+    public static void write(Collection<? extends Constraint<?>> constraints, OutputStream out) throws IOException {
+        Map<String, Integer> operators = new LinkedHashMap<>();
+        Map<String, Integer> attributes = new LinkedHashMap<>();
+        for (Constraint<?> constraint : constraints) {
+            index(operators, constraint.getOperator().name());
+            index(attributes, constraint.getAttributeName());
+        }
+        if (operators.size() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many operators");
+        }
+
+        CRC32 crc = new CRC32();
+        DataOutputStream data = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(out), crc));
+        data.writeInt(SnapshotFormat.MAGIC);
+        data.writeInt(SnapshotFormat.VERSION);
+        writeDictionary(data, operators);
+        writeDictionary(data, attributes);
+
+        data.writeInt(constraints.size());
+        for (Constraint<?> constraint : constraints) {
+            data.writeInt(attributes.get(constraint.getAttributeName()));
+            data.writeByte(operators.get(constraint.getOperator().name()));
+            writeValue(data, constraint.getAttributeValue());
+        }
+
+        data.flush();
+        new DataOutputStream(out).writeLong(crc.getValue());
+        out.flush();
+    }
+
+    private static void index(Map<String, Integer> dictionary, String key) {
+        if (!dictionary.containsKey(key)) {
+            dictionary.put(key, dictionary.size());
+        }
+    }
+
+    private static void writeDictionary(DataOutputStream data, Map<String, Integer> dictionary) throws IOException {
+        data.writeInt(dictionary.size());
+        for (String key : dictionary.keySet()) {
+            writeString(data, key);
+        }
+    }
+
+    private static void writeValue(DataOutputStream data, AttributeValue<?> av) throws IOException {
+        Class<?> type = av.getType();
+        Object value = av.getValue();
+
+        if (type == Long.class) {
+            data.writeByte(SnapshotFormat.LONG);
+            data.writeLong((Long) value);
+        } else if (type == Double.class) {
+            data.writeByte(SnapshotFormat.DOUBLE);
+            data.writeDouble((Double) value);
+        } else if (type == String.class) {
+            data.writeByte(SnapshotFormat.STRING);
+            writeString(data, (String) value);
+        } else if (type == Date.class) {
+            data.writeByte(SnapshotFormat.DATE);
+            data.writeLong(((Date) value).getTime());
+        } else if (type == Time.class) {
+            data.writeByte(SnapshotFormat.TIME);
+            data.writeInt(((Time) value).getMillisOfDay());
+        } else if (type == LongRange.class) {
+            data.writeByte(SnapshotFormat.LONG_RANGE);
+            data.writeLong(((LongRange) value).getStart());
+            data.writeLong(((LongRange) value).getEnd());
+        } else if (type == DoubleRange.class) {
+            data.writeByte(SnapshotFormat.DOUBLE_RANGE);
+            data.writeDouble(((DoubleRange) value).getStart());
+            data.writeDouble(((DoubleRange) value).getEnd());
+        } else if (type == DateRange.class) {
+            data.writeByte(SnapshotFormat.DATE_RANGE);
+            data.writeLong(((DateRange) value).getStartMillis());
+            data.writeLong(((DateRange) value).getEndMillis());
+        } else if (type == TimeRange.class) {
+            data.writeByte(SnapshotFormat.TIME_RANGE);
+            data.writeInt(((TimeRange) value).getStart().getMillisOfDay());
+            data.writeInt(((TimeRange) value).getEnd().getMillisOfDay());
+        } else if (type == LongSet.class) {
+            LongSet set = (LongSet) value;
+            data.writeByte(SnapshotFormat.LONG_SET);
+            data.writeInt(set.size());
+            for (int i = 0; i < set.size(); i++) {
+                data.writeLong(set.get(i));
+            }
+        } else if (type == StringSet.class) {
+            StringSet set = (StringSet) value;
+            data.writeByte(SnapshotFormat.STRING_SET);
+            data.writeInt(set.size());
+            for (int i = 0; i < set.size(); i++) {
+                writeString(data, set.get(i));
+            }
+        } else if (type == Suffix.class) {
+            data.writeByte(SnapshotFormat.SUFFIX);
+            writeString(data, ((Suffix) value).getValue());
+        } else if (type == Substring.class) {
+            data.writeByte(SnapshotFormat.SUBSTRING);
+            writeString(data, ((Substring) value).getValue());
+        } else {
+            throw new IllegalArgumentException(type + " not supported");
+        }
+    }
+
+    private static void writeString(DataOutputStream data, String s) throws IOException {
+        byte[] bytes = s.getBytes(SnapshotFormat.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+}
@@ -0,0 +1,113 @@
+package cz.muni.fi.langparser;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of Strings, the value of {@code #in} with String arguments.
+ * Backed by a sorted array without duplicates,
+ * {@link #contains(CharSequence)} is a binary search that allocates nothing.
+ */
+public final class StringSet implements Comparable<StringSet> {
+
+    private final String[] values;
+
+    private StringSet(String[] values) {
+        this.values = values;
+    }
+
+    public static StringSet of(String... values) {
+        return of(Arrays.asList(values));
+    }
+
+    public static StringSet of(Collection<String> values) {
+        String[] sorted = values.toArray(new String[values.size()]);
+        Arrays.sort(sorted);
+
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if ((size == 0) || (!sorted[i].equals(sorted[size - 1]))) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return new StringSet((size == sorted.length) ? sorted : Arrays.copyOf(sorted, size));
+    }
+
+    public boolean contains(CharSequence value) {
+        int low = 0;
+        int high = values.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compare(values[mid], value);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares like {@link String#compareTo(String)}, without converting
+     * {@code b} to a String.
+     */
+    private static int compare(String a, CharSequence b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(i);
+            if (ca != cb) {
+                return ca - cb;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @return the {@code index}-th smallest element
+     */
+    public String get(int index) {
+        return values[index];
+    }
+
+    public String[] toArray() {
+        return values.clone();
+    }
+
+    /**
+     * Orders sets lexicographically by their sorted elements.
+     */
+    @Override
+    public int compareTo(StringSet o) {
+        int length = Math.min(values.length, o.values.length);
+        for (int i = 0; i < length; i++) {
+            int c = values[i].compareTo(o.values[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return values.length - o.values.length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return (obj instanceof StringSet) && Arrays.equals(values, ((StringSet) obj).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
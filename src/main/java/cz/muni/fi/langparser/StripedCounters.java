@@ -0,0 +1,67 @@
+package cz.muni.fi.langparser;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size array of counters that many threads can increment without
+ * contending on the same cache line. Every counter is split into stripes,
+ * a thread always increments the stripe selected by its id and readers sum
+ * all stripes. Sums are therefore not atomic snapshots across counters.
+ */
+final class StripedCounters {
+
+    /**
+     * Longs per cache line.
+     */
+    private static final int PADDING = 8;
+    private static final int STRIPES = stripeCount();
+
+    private final int width;
+    private final int rowLength;
+    private final AtomicLongArray cells;
+
+    StripedCounters(int width) {
+        this.width = width;
+        //a whole extra cache line between two rows, so that they never share one
+        this.rowLength = ((width + PADDING - 1) / PADDING + 1) * PADDING;
+        this.cells = new AtomicLongArray(STRIPES * rowLength + PADDING);
+    }
+
+    int width() {
+        return width;
+    }
+
+    void increment(int index) {
+        cells.getAndIncrement(stripe() * rowLength + PADDING + index);
+    }
+
+    long get(int index) {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * rowLength + PADDING + index);
+        }
+        return sum;
+    }
+
+    long[] getAll() {
+        long[] sums = new long[width];
+        for (int i = 0; i < width; i++) {
+            sums[i] = get(i);
+        }
+        return sums;
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & (STRIPES - 1);
+    }
+
+    private static int stripeCount() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int count = 1;
+        while (count < 2 * processors) {
+            count <<= 1;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,118 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Subscription document that is edited and re-submitted as a whole, in the
+ * line format of {@link SubscriptionLoader}. The constraints of the previous
+ * version are kept keyed by their line, i.e. by attribute name and
+ * expression text, so an {@link #update(CharSequence)} parses only the lines
+ * that are new and reports what has to be (un)registered as a
+ * {@link DocumentDelta}. Identical lines yield a single constraint.
+ * <p>
+ * A document is not thread-safe.
+ */
+public class SubscriptionDocument {
+
+    private Map<String, Constraint<?>> constraints = new HashMap<>();
+
+    /**
+     * Replaces the document's content.
+     *
+     * @return constraints added, removed and kept compared to the previous
+     * content, and the errors of malformed lines
+     */
+    public DocumentDelta update(CharSequence document) {
+        Map<String, Constraint<?>> next = new HashMap<>();
+        List<Constraint<?>> added = new ArrayList<>();
+        List<Constraint<?>> unchanged = new ArrayList<>();
+        LineCollector collector = new LineCollector();
+
+        int lineNumber = 0;
+        int start = 0;
+        while (start < document.length()) {
+            lineNumber++;
+            int lineEnd = SubscriptionLines.lineEnd(document, start);
+            int end = SubscriptionLines.contentEnd(document, start, lineEnd);
+
+            if (end > start) {
+                String line = document.subSequence(start, end).toString();
+                if (!next.containsKey(line)) {
+                    Constraint<?> constraint = constraints.get(line);
+                    if (constraint != null) {
+                        unchanged.add(constraint);
+                    } else {
+                        collector.line = line;
+                        SubscriptionLines.parse(lineNumber, line, 0, line.length(), collector);
+                        constraint = collector.constraint;
+                        collector.constraint = null;
+                        if (constraint != null) {
+                            added.add(constraint);
+                        }
+                    }
+                    if (constraint != null) {
+                        next.put(line, constraint);
+                    }
+                }
+            }
+            start = lineEnd + 1;
+        }
+
+        List<Constraint<?>> removed = new ArrayList<>();
+        for (Map.Entry<String, Constraint<?>> entry : constraints.entrySet()) {
+            if (!next.containsKey(entry.getKey())) {
+                removed.add(entry.getValue());
+            }
+        }
+
+        constraints = next;
+        return new DocumentDelta(added, removed, unchanged, collector.errors);
+    }
+
+    /**
+     * @return constraints of the current content
+     */
+    public Collection<Constraint<?>> getConstraints() {
+        return Collections.unmodifiableCollection(constraints.values());
+    }
+
+    public int size() {
+        return constraints.size();
+    }
+
+    /**
+     * Forgets the content, the next update reports all its constraints as
+     * added.
+     */
+    public void clear() {
+        constraints = new HashMap<>();
+    }
+
+    /**
+     * Takes the outcome of parsing one line at a time.
+     */
+    private static final class LineCollector implements SubscriptionHandler {
+
+        private final Map<Integer, DocumentDelta.LineError> errors = new TreeMap<>();
+        private String line;
+        private Constraint<?> constraint;
+
+        @Override
+        public void onConstraint(long lineNumber, Constraint<?> constraint) {
+            this.constraint = constraint;
+        }
+
+        @Override
+        public void onError(long lineNumber, int column, String message) {
+            errors.put((int) lineNumber, new DocumentDelta.LineError((int) lineNumber, line, new ParseException(message, column)));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+
+/**
+ * Receives the results of a {@link SubscriptionLoader} run, one call per
+ * non-empty input line.
+ */
+public interface SubscriptionHandler {
+
+    /**
+     * @param lineNumber 1-based number of the line the constraint was read from
+     * @param constraint the parsed constraint
+     */
+    void onConstraint(long lineNumber, Constraint<?> constraint);
+
+    /**
+     * @param lineNumber 1-based number of the malformed line
+     * @param column 0-based offset of the error within the line
+     * @param message description of the error
+     */
+    void onError(long lineNumber, int column, String message);
+}
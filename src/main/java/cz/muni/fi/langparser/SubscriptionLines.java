@@ -0,0 +1,64 @@
+package cz.muni.fi.langparser;
+
+/**
+ * Line format of subscription files shared by {@link SubscriptionLoader} and
+ * {@link SubscriptionDocument}: lines end with {@code \n} or {@code \r\n},
+ * every non-empty one has the form {@code attribute<TAB>#op args}.
+ */
+final class SubscriptionLines {
+
+    static final String TAB_EXPECTED = "Tab separated attribute name expected";
+
+    private SubscriptionLines() {
+    }
+
+    /**
+     * @return index of the {@code \n} ending the line starting at
+     * {@code start}, or the input length for the last line
+     */
+    static int lineEnd(CharSequence input, int start) {
+        int end = start;
+        while ((end < input.length()) && (input.charAt(end) != '\n')) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return end of the line's content, i.e. without a trailing {@code \r}
+     */
+    static int contentEnd(CharSequence input, int start, int end) {
+        if ((end > start) && (input.charAt(end - 1) == '\r')) {
+            return end - 1;
+        }
+        return end;
+    }
+
+    /**
+     * Parses the line content stored in {@code input[start, end)} and reports
+     * the outcome to the handler, error columns are relative to
+     * {@code start}. Empty lines are skipped.
+     */
+    static void parse(long lineNumber, CharSequence input, int start, int end, SubscriptionHandler handler) {
+        if (end == start) {
+            return;
+        }
+
+        int tab = start;
+        while ((tab < end) && (input.charAt(tab) != '\t')) {
+            tab++;
+        }
+        if (tab == end) {
+            handler.onError(lineNumber, end - start, TAB_EXPECTED);
+            return;
+        }
+
+        String attributeName = input.subSequence(start, tab).toString();
+        ParseResult result = LangParser.tryParse(attributeName, input, tab + 1, end);
+        if (result.isSuccess()) {
+            handler.onConstraint(lineNumber, result.getConstraint());
+        } else {
+            handler.onError(lineNumber, result.getErrorPosition() - start, result.getError().getMessage());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package cz.muni.fi.langparser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Streams line-oriented subscription files into a {@link SubscriptionHandler}.
+ * Every line has the form {@code attribute<TAB>#op args}, empty lines are
+ * skipped. The input is read through a fixed size buffer and every expression
+ * is parsed straight out of a reused line buffer, so memory use does not
+ * depend on the size of the input, only on the length of its longest line.
+ * <p>
+ * A loader is not thread-safe, use one instance per thread.
+ */
+public class SubscriptionLoader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAPPING_WINDOW = 1 << 24;
+
+    private final SubscriptionHandler handler;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder line = new StringBuilder();
+    private long lineNumber;
+
+    public SubscriptionLoader(SubscriptionHandler handler) {
+        this.handler = handler;
+    }
+
+    public void load(Reader reader) throws IOException {
+        reset();
+
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            feed(buffer, 0, read);
+        }
+
+        finish();
+    }
+
+    /**
+     * Loads UTF-8 encoded input.
+     */
+    public void load(InputStream in) throws IOException {
+        load(new InputStreamReader(in, UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)));
+    }
+
+    /**
+     * Loads a UTF-8 encoded file by mapping it into memory window by window,
+     * from the channel's current position to its end.
+     */
+    public void load(FileChannel channel) throws IOException {
+        reset();
+
+        CharsetDecoder decoder = UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer chars = CharBuffer.wrap(buffer);
+        long position = channel.position();
+        long size = channel.size();
+
+        while (position < size) {
+            long windowSize = Math.min(MAPPING_WINDOW, size - position);
+            boolean last = (position + windowSize == size);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+
+            decode(decoder, window, chars, last);
+            if (last) {
+                decoder.flush(chars);
+                drain(chars);
+            } else if (window.position() == 0) { //no progress, cannot happen with valid UTF-8
+                throw new CharacterCodingException();
+            }
+
+            //a character split between two windows is decoded again from the next one
+            position += window.position();
+        }
+
+        channel.position(size);
+        finish();
+    }
+
+    private void decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars, boolean last) throws CharacterCodingException {
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, last);
+            if (result.isError()) {
+                result.throwException();
+            }
+            drain(chars);
+            if (result.isUnderflow()) {
+                return;
+            }
+        }
+    }
+
+    private void drain(CharBuffer chars) {
+        chars.flip();
+        feed(buffer, 0, chars.remaining());
+        chars.clear();
+    }
+
+    private void reset() {
+        line.setLength(0);
+        lineNumber = 0;
+    }
+
+    private void feed(char[] chars, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+
+        for (int i = offset; i < end; i++) {
+            if (chars[i] == '\n') {
+                line.append(chars, start, i - start);
+                processLine();
+                start = i + 1;
+            }
+        }
+
+        line.append(chars, start, end - start);
+    }
+
+    private void finish() {
+        if (line.length() > 0) {
+            processLine();
+        }
+    }
+
+    private void processLine() {
+        lineNumber++;
+        SubscriptionLines.parse(lineNumber, line, 0, SubscriptionLines.contentEnd(line, 0, line.length()), handler);
+        line.setLength(0);
+    }
+}
@@ -0,0 +1,77 @@
+package cz.muni.fi.langparser;
+
+/**
+ * Argument of {@code #contains}, with a Horspool skip table built once at
+ * parse time. The table is indexed by the low byte of a character, so
+ * characters sharing it share the smallest shift, which keeps the search
+ * correct for any text.
+ */
+public final class Substring implements Comparable<Substring> {
+
+    private static final int TABLE_SIZE = 256;
+
+    private final String value;
+    private final int[] skip = new int[TABLE_SIZE];
+
+    public Substring(String value) {
+        this.value = value;
+        int last = value.length() - 1;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            skip[i] = value.length();
+        }
+        for (int i = 0; i < last; i++) { //later occurrences overwrite with smaller shifts
+            skip[value.charAt(i) & (TABLE_SIZE - 1)] = last - i;
+        }
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean matches(CharSequence s) {
+        return indexIn(s) >= 0;
+    }
+
+    /**
+     * @return index of the first occurrence in {@code s} or -1
+     */
+    public int indexIn(CharSequence s) {
+        int last = value.length() - 1;
+        if (last < 0) {
+            return 0;
+        }
+
+        int i = 0;
+        while (i + last < s.length()) {
+            int j = last;
+            while ((j >= 0) && (s.charAt(i + j) == value.charAt(j))) {
+                j--;
+            }
+            if (j < 0) {
+                return i;
+            }
+            i += skip[s.charAt(i + last) & (TABLE_SIZE - 1)];
+        }
+        return -1;
+    }
+
+    @Override
+    public int compareTo(Substring o) {
+        return value.compareTo(o.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return (obj instanceof Substring) && value.equals(((Substring) obj).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "*" + value + "*";
+    }
+}
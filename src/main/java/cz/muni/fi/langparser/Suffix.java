@@ -0,0 +1,62 @@
+package cz.muni.fi.langparser;
+
+/**
+ * Argument of {@code #suff}. Besides the suffix itself it keeps the suffix
+ * reversed, so that suffix constraints can be indexed in the same kind of
+ * prefix trie as {@code #pref} ones, keyed by reversed values.
+ */
+public final class Suffix implements Comparable<Suffix> {
+
+    private final String value;
+    private final String reversed;
+
+    public Suffix(String value) {
+        this.value = value;
+        this.reversed = new StringBuilder(value).reverse().toString();
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return the suffix with its characters in reverse order, surrogate
+     * pairs are kept intact
+     */
+    public String getReversed() {
+        return reversed;
+    }
+
+    public boolean matches(CharSequence s) {
+        int offset = s.length() - value.length();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (s.charAt(offset + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int compareTo(Suffix o) {
+        return value.compareTo(o.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return (obj instanceof Suffix) && value.equals(((Suffix) obj).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "*" + value;
+    }
+}
@@ -0,0 +1,64 @@
+package cz.muni.fi.langparser;
+
+/**
+ * Time of day with millisecond precision, the value of {@code h:m:s}
+ * literals.
+ */
+public final class Time implements Comparable<Time> {
+
+    private final int millisOfDay;
+
+    public Time(int millisOfDay) {
+        if ((millisOfDay < 0) || (millisOfDay >= DateTimes.MILLIS_PER_DAY)) {
+            throw new IllegalArgumentException("Not a time of day: " + millisOfDay);
+        }
+        this.millisOfDay = millisOfDay;
+    }
+
+    public Time(int hour, int minute, int second) {
+        this(hour * DateTimes.MILLIS_PER_HOUR + minute * DateTimes.MILLIS_PER_MINUTE + second * DateTimes.MILLIS_PER_SECOND);
+    }
+
+    public int getMillisOfDay() {
+        return millisOfDay;
+    }
+
+    public int getHour() {
+        return millisOfDay / DateTimes.MILLIS_PER_HOUR;
+    }
+
+    public int getMinute() {
+        return (millisOfDay / DateTimes.MILLIS_PER_MINUTE) % 60;
+    }
+
+    public int getSecond() {
+        return (millisOfDay / DateTimes.MILLIS_PER_SECOND) % 60;
+    }
+
+    public int getMillis() {
+        return millisOfDay % DateTimes.MILLIS_PER_SECOND;
+    }
+
+    @Override
+    public int compareTo(Time o) {
+        return (millisOfDay < o.millisOfDay) ? -1 : ((millisOfDay == o.millisOfDay) ? 0 : 1);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return (obj instanceof Time) && (((Time) obj).millisOfDay == millisOfDay);
+    }
+
+    @Override
+    public int hashCode() {
+        return millisOfDay;
+    }
+
+    @Override
+    public String toString() {
+        if (getMillis() == 0) {
+            return String.format("%02d:%02d:%02d", getHour(), getMinute(), getSecond());
+        }
+        return String.format("%02d:%02d:%02d.%03d", getHour(), getMinute(), getSecond(), getMillis());
+    }
+}
@@ -0,0 +1,49 @@
+package cz.muni.fi.langparser;
+
+/**
+ * Closed interval of times of day, the value of {@code #rng} with two time
+ * literals.
+ */
+public final class TimeRange implements Comparable<TimeRange> {
+
+    private final Time start;
+    private final Time end;
+
+    public TimeRange(Time start, Time end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public Time getStart() {
+        return start;
+    }
+
+    public Time getEnd() {
+        return end;
+    }
+
+    @Override
+    public int compareTo(TimeRange o) {
+        int c = start.compareTo(o.start);
+        return (c != 0) ? c : end.compareTo(o.end);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof TimeRange)) {
+            return false;
+        }
+        TimeRange other = (TimeRange) obj;
+        return start.equals(other.start) && end.equals(other.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start.hashCode() + end.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "TimeRange{" + start + ", " + end + "}";
+    }
+}
@@ -0,0 +1,854 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.AttributeValue;
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.LongRange;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Cursor over a single expression, i.e. the slice
+ * {@code [inputStart, inputEnd)} of the input. Instances hold the mutable
+ * parsing state and must not be shared, {@link LangParser} creates a new one
+ * for every parsed expression. Reported positions are offsets into the whole
+ * input, not into the slice.
+ * <p>
+ * No exceptions are used for rejected input. A method that fails records the
+ * error via {@link #fail(ParseError, int)} and returns {@code null} (or a
+ * negative number), its caller either propagates that or tries another
+ * alternative.
+ * <p>
+ * If the attribute's type is known, arguments are read by the parser of that
+ * type only and anything else is a {@link ParseError#TYPE_MISMATCH}.
+ * <p>
+ * When validating, the very same grammar runs, but the value factories
+ * return shared placeholders of the right type instead of building values,
+ * so a valid expression allocates nothing. The tokenizer of a
+ * {@link ValidationResult} is reused via
+ * {@link #reset(CharSequence, int, int, AttributeType)}.
+ */
+final class Tokenizer {
+
+    private static final int MAX_DOUBLE_MAGNITUDE = 308; //Double.MAX_VALUE is 1.8e308
+
+    private static final AttributeValue<Long> SOME_LONG = new AttributeValue<>(0L, Long.class);
+    private static final AttributeValue<Double> SOME_DOUBLE = new AttributeValue<>(0.0, Double.class);
+    private static final AttributeValue<Date> SOME_DATE = new AttributeValue<>(new Date(0), Date.class);
+    private static final AttributeValue<Time> SOME_TIME = new AttributeValue<>(new Time(0), Time.class);
+    private static final AttributeValue<String> SOME_STRING = new AttributeValue<>("", String.class);
+    private static final AttributeValue<LongSet> SOME_LONG_SET = new AttributeValue<>(LongSet.of(), LongSet.class);
+    private static final AttributeValue<StringSet> SOME_STRING_SET = new AttributeValue<>(StringSet.of(), StringSet.class);
+    private static final Constraint<?> SOME_CONSTRAINT = new Constraint<>("", SOME_LONG, Operator.EQUALS);
+
+    private CharSequence input;
+    private int inputStart;
+    private int inputEnd;
+    private AttributeType type;
+    private int currentPos;
+    private int scanPos; //position within the literal scanned by readDateTime()
+    private boolean outOfRange; //readDateTime() failed on a well-formed field with an invalid value
+    private ParseError error;
+    private int errorPos;
+    private ValidationResult validation; //not null when only validating
+    private OperatorDefinition parsedOperator;
+
+    Tokenizer(CharSequence input, int start, int end, AttributeType type) {
+        reset(input, start, end, type);
+    }
+
+    void reset(CharSequence input, int start, int end, AttributeType type) {
+        this.input = input;
+        this.inputStart = start;
+        this.inputEnd = end;
+        this.type = type;
+        this.currentPos = start;
+        this.error = null;
+        this.outOfRange = false;
+    }
+
+    ParseResult parse(String attributeName) {
+        validation = null;
+        Constraint<?> constraint = parseConstraint(attributeName);
+        if (constraint == null) {
+            return ParseResult.failure(error, errorPos);
+        }
+        return ParseResult.success(constraint, parsedOperator);
+    }
+
+    boolean validate(ValidationResult result) {
+        validation = result;
+        result.reset();
+        Constraint<?> constraint = parseConstraint(null);
+        validation = null;
+        if (constraint == null) {
+            result.fail(error, errorPos);
+            return false;
+        }
+        return true;
+    }
+
+    private Constraint<?> parseConstraint(String attributeName) {
+        int start = currentPos;
+        skipToken();
+        OperatorDefinition operator = OperatorRegistry.getDefault().lookup(input, start, currentPos);
+        if (operator == null) {
+            return fail(ParseError.UNSUPPORTED_OPERATOR, currentPos);
+        }
+
+        AttributeValue<?> av;
+        switch (operator.getSyntax()) {
+            case NUMBER:
+                av = argNum();
+                break;
+            case ANY:
+                av = argAny();
+                break;
+            case NUMBER_RANGE:
+                av = argNum_argNum();
+                break;
+            case STRING:
+                av = argString();
+                break;
+            case LIST:
+                av = argList();
+                break;
+            case SUFFIX:
+                av = argString();
+                if ((av != null) && (validation == null)) {
+                    av = new AttributeValue<>(new Suffix((String) av.getValue()), Suffix.class);
+                }
+                break;
+            case SUBSTRING:
+                av = argString();
+                if ((av != null) && (validation == null)) {
+                    av = new AttributeValue<>(new Substring((String) av.getValue()), Substring.class);
+                }
+                break;
+            default:
+                return fail(ParseError.UNSUPPORTED_OPERATOR, start);
+        }
+
+        if (av == null) {
+            return null;
+        }
+
+        return createConstraint(attributeName, av, operator);
+    }
+
+    private AttributeValue<?> argNum() {
+        if (! acceptSpace()) {
+            return null;
+        }
+
+        int start = currentPos;
+        return argument(start, (type == null) ? readNumber() : readTyped());
+    }
+
+    /**
+     * Records the span of a successfully read argument when validating.
+     */
+    private AttributeValue<?> argument(int start, AttributeValue<?> av) {
+        if ((av != null) && (validation != null)) {
+            validation.addArgument(start, currentPos);
+        }
+        return av;
+    }
+
+    /**
+     * Reads a non-String argument of the attribute's {@link #type}.
+     */
+    private AttributeValue<?> readTyped() {
+        int start = currentPos;
+        if (isLastArg()) {
+            return fail(ParseError.MISSING_ARGUMENT, currentPos);
+        }
+
+        skipToken();
+        int end = currentPos;
+        AttributeValue<?> av;
+
+        switch (type) {
+            case LONG:
+                av = createNumericAttributeValue(start, end);
+                if ((av != null) && (av.getType() != Long.class)) {
+                    return fail(ParseError.TYPE_MISMATCH, start);
+                }
+                return av;
+            case DOUBLE:
+                av = createNumericAttributeValue(start, end);
+                if ((av != null) && (av.getType() == Long.class)) {
+                    return doubleValue(((Long) av.getValue()).doubleValue());
+                }
+                return av;
+            case DATE:
+                return readDateTime(start, true, end);
+            case TIME:
+                return readDateTime(start, false, end);
+            default:
+                return fail(ParseError.TYPE_MISMATCH, start);
+        }
+    }
+
+    private AttributeValue<?> readNumber() {
+        int start = currentPos;
+        if (isLastArg()) {
+            return fail(ParseError.MISSING_ARGUMENT, currentPos);
+        }
+
+        char first = readChar();
+        if (first == '\'') { //expect quoted String -> if acceptable, argAny will take care of it
+            return fail(ParseError.NUMBER_EXPECTED, currentPos);
+        }
+
+        skipToken();
+        int end = currentPos;
+
+        //leading digits followed by '-' or ':' -> expect date (y-m-d[Th:m:s]) or time (h:m:s)
+        int digitsEnd = skipDigits(start, end);
+        if ((digitsEnd > start) && (digitsEnd < end)) {
+            char separator = input.charAt(digitsEnd);
+            if ((separator == '-') || (separator == ':')) {
+                return readDateTime(start, separator == '-', end);
+            }
+        }
+
+        //else expect (possibly negative) integer
+        return createNumericAttributeValue(start, end);
+    }
+
+    /**
+     * Reads an ISO-8601 like literal, either a time of day {@code h:m:s[.SSS]}
+     * or a date {@code y-m-d[Th:m:s[.SSS][Z|+hh:mm|-hh:mm]]}. Dates without an
+     * offset are in the default time zone.
+     */
+    private AttributeValue<?> readDateTime(int start, boolean hasDate, int end) {
+        scanPos = start;
+        outOfRange = false;
+
+        if (!hasDate) {
+            int millisOfDay = readTimeOfDay(end);
+            if (millisOfDay < 0) {
+                return null;
+            }
+            if (scanPos != end) {
+                return fail(ParseError.INVALID_DATE_TIME, scanPos);
+            }
+            return timeValue(millisOfDay);
+        }
+
+        int year;
+        int month;
+        int day;
+        if (((year = readField(end, 4)) < 0) || (!expect('-', end))
+                || ((month = readField(end, 2)) < 0) || (!expect('-', end))
+                || ((day = readField(end, 2)) < 0)) {
+            return null;
+        }
+        if ((month < 1) || (month > 12) || (day < 1) || (day > DateTimes.daysInMonth(year, month))) {
+            outOfRange = true;
+            return fail(ParseError.INVALID_DATE_TIME, start);
+        }
+
+        long millis = DateTimes.daysFromCivil(year, month, day) * DateTimes.MILLIS_PER_DAY;
+        if (scanPos == end) { //date only -> midnight
+            return dateValue(DateTimes.localToUtc(millis));
+        }
+
+        if (!expect('T', end)) {
+            return null;
+        }
+        int millisOfDay = readTimeOfDay(end);
+        if (millisOfDay < 0) {
+            return null;
+        }
+        millis += millisOfDay;
+
+        if (scanPos == end) {
+            millis = DateTimes.localToUtc(millis);
+        } else {
+            char sign = input.charAt(scanPos++);
+            if ((sign == '+') || (sign == '-')) {
+                int offsetHour;
+                int offsetMin;
+                if (((offsetHour = readField(end, 2)) < 0) || (!expect(':', end))
+                        || ((offsetMin = readField(end, 2)) < 0)) {
+                    return null;
+                }
+                if ((offsetHour > 23) || (offsetMin > 59)) {
+                    outOfRange = true;
+                    return fail(ParseError.INVALID_DATE_TIME, scanPos);
+                }
+                int offset = offsetHour * DateTimes.MILLIS_PER_HOUR + offsetMin * DateTimes.MILLIS_PER_MINUTE;
+                millis -= (sign == '+') ? offset : -offset;
+            } else if (sign != 'Z') {
+                return fail(ParseError.INVALID_DATE_TIME, scanPos - 1);
+            }
+
+            if (scanPos != end) {
+                return fail(ParseError.INVALID_DATE_TIME, scanPos);
+            }
+        }
+
+        return dateValue(millis);
+    }
+
+    /**
+     * @return milliseconds of the day or -1 if there is no valid
+     * {@code h:m:s[.SSS]} at {@link #scanPos}
+     */
+    private int readTimeOfDay(int end) {
+        int start = scanPos;
+        int hour;
+        int min;
+        int sec;
+        if (((hour = readField(end, 2)) < 0) || (!expect(':', end))
+                || ((min = readField(end, 2)) < 0) || (!expect(':', end))
+                || ((sec = readField(end, 2)) < 0)) {
+            return -1;
+        }
+
+        int millis = 0;
+        if ((scanPos < end) && (input.charAt(scanPos) == '.')) {
+            scanPos++;
+            int fractionStart = scanPos;
+            if ((millis = readField(end, 3)) < 0) {
+                return -1;
+            }
+            for (int i = scanPos - fractionStart; i < 3; i++) {
+                millis *= 10;
+            }
+        }
+
+        if ((hour > 23) || (min > 59) || (sec > 59)) {
+            outOfRange = true;
+            fail(ParseError.INVALID_DATE_TIME, start);
+            return -1;
+        }
+
+        return hour * DateTimes.MILLIS_PER_HOUR + min * DateTimes.MILLIS_PER_MINUTE
+                + sec * DateTimes.MILLIS_PER_SECOND + millis;
+    }
+
+    /**
+     * Reads 1 to {@code maxDigits} digits at {@link #scanPos}.
+     *
+     * @return the non-negative number read or -1 if there is no digit
+     */
+    private int readField(int end, int maxDigits) {
+        int start = scanPos;
+        int num = 0;
+        while ((scanPos < end) && (scanPos - start < maxDigits)) {
+            int digit = input.charAt(scanPos) - '0';
+            if ((digit < 0) || (digit > 9)) {
+                break;
+            }
+            num = num * 10 + digit;
+            scanPos++;
+        }
+
+        if (scanPos == start) {
+            fail((scanPos == end) ? ParseError.UNEXPECTED_END_OF_INPUT : ParseError.INTEGER_EXPECTED, scanPos);
+            return -1;
+        }
+        return num;
+    }
+
+    private boolean expect(char c, int end) {
+        if ((scanPos < end) && (input.charAt(scanPos) == c)) {
+            scanPos++;
+            return true;
+        }
+
+        fail((scanPos == end) ? ParseError.UNEXPECTED_END_OF_INPUT : ParseError.INVALID_DATE_TIME, scanPos);
+        return false;
+    }
+
+    private AttributeValue<?> argAny() {
+        if (! acceptSpace()) {
+            return null;
+        }
+
+        int start = currentPos;
+        if (isLastArg()) {
+            return fail(ParseError.MISSING_ARGUMENT, currentPos);
+        }
+        if ((type != null) && (type != AttributeType.STRING)) {
+            return argument(start, readTyped());
+        }
+        if (input.charAt(start) == '\'') {
+            currentPos++;
+            return argument(start, readQuotedString());
+        }
+
+        if (type == AttributeType.STRING) {
+            skipToken();
+            return argument(start, stringValue(start, currentPos));
+        }
+
+        AttributeValue<?> av = readNumber();
+        if (av != null) {
+            return argument(start, av);
+        }
+        if (outOfRange) {
+            return null; //e.g. 2012-02-30, an invalid date rather than a String
+        }
+
+        //not a number -> rewind and take the whole token as a String
+        error = null;
+        currentPos = start;
+        skipToken();
+        return argument(start, stringValue(start, currentPos));
+    }
+
+    private AttributeValue<?> argString() {
+        if (!acceptSpace()) {
+            return null;
+        }
+        if ((type != null) && (type != AttributeType.STRING)) {
+            return fail(ParseError.TYPE_MISMATCH, currentPos);
+        }
+
+        int start = currentPos;
+        if (isLastArg()) {
+            return fail(ParseError.MISSING_ARGUMENT, currentPos);
+        }
+
+        if (readChar() == '\'') {
+            return argument(start, readQuotedString());
+        }
+
+        skipToken();
+        if (isLastArg()) {
+            return argument(start, stringValue(start, currentPos));
+        } else {
+            return fail(ParseError.UNEXPECTED_SPACE, currentPos);
+        }
+    }
+
+    /**
+     * Reads space separated integers into a {@link LongSet} or quoted Strings
+     * (any tokens if the attribute is a String) into a {@link StringSet}.
+     */
+    private AttributeValue<?> argList() {
+        if (!acceptSpace()) {
+            return null;
+        }
+        if ((type != null) && (type != AttributeType.LONG) && (type != AttributeType.STRING)) {
+            return fail(ParseError.TYPE_MISMATCH, currentPos);
+        }
+        if (isLastArg()) {
+            return fail(ParseError.MISSING_ARGUMENT, currentPos);
+        }
+
+        boolean strings = (type == AttributeType.STRING) || ((type == null) && (input.charAt(currentPos) == '\''));
+        long[] longs = null;
+        List<String> stringList = null;
+        if (validation == null) {
+            if (strings) {
+                stringList = new ArrayList<>();
+            } else {
+                longs = new long[8];
+            }
+        }
+
+        int count = 0;
+        while (true) {
+            int start = currentPos;
+            if (isLastArg()) {
+                return fail(ParseError.MISSING_ARGUMENT, currentPos);
+            }
+
+            AttributeValue<?> av;
+            if (strings) {
+                if (input.charAt(start) == '\'') {
+                    currentPos++;
+                    av = readQuotedString();
+                } else if (type == AttributeType.STRING) {
+                    skipToken();
+                    av = stringValue(start, currentPos);
+                } else {
+                    return fail(ParseError.TYPE_MISMATCH, start);
+                }
+            } else {
+                av = (type == null) ? readNumber() : readTyped();
+                if ((av != null) && (av.getType() != Long.class)) {
+                    return fail(ParseError.TYPE_MISMATCH, start);
+                }
+            }
+            if (argument(start, av) == null) {
+                return null;
+            }
+
+            if (stringList != null) {
+                stringList.add((String) av.getValue());
+            } else if (longs != null) {
+                if (count == longs.length) {
+                    longs = Arrays.copyOf(longs, count * 2);
+                }
+                longs[count] = (Long) av.getValue();
+            }
+            count++;
+
+            if (isLastArg()) {
+                break;
+            }
+            if (!acceptSpace()) {
+                return null;
+            }
+        }
+
+        if (validation != null) {
+            return strings ? SOME_STRING_SET : SOME_LONG_SET;
+        }
+        if (strings) {
+            return new AttributeValue<>(StringSet.of(stringList), StringSet.class);
+        }
+        return new AttributeValue<>(LongSet.of(longs, count), LongSet.class);
+    }
+
+    private AttributeValue<?> argNum_argNum() {
+        AttributeValue<?> av1 = argNum();
+        if (av1 == null) {
+            return null;
+        }
+
+        if (av1.getType() == Date.class) {
+            AttributeValue<?> av2 = argNum();
+
+            if (av2 == null) {
+                return null;
+            } else if (av2.getType() == Date.class) {
+                if (validation != null) {
+                    return SOME_DATE;
+                }
+                return new AttributeValue<>(new DateRange((Date)av1.getValue(), (Date)av2.getValue()), DateRange.class);
+            } else {
+                return fail(ParseError.TYPE_MISMATCH, currentPos);
+            }
+        }
+
+        if (av1.getType() == Time.class) {
+            AttributeValue<?> av2 = argNum();
+
+            if (av2 == null) {
+                return null;
+            } else if (av2.getType() == Time.class) {
+                if (validation != null) {
+                    return SOME_TIME;
+                }
+                return new AttributeValue<>(new TimeRange((Time)av1.getValue(), (Time)av2.getValue()), TimeRange.class);
+            } else {
+                return fail(ParseError.TYPE_MISMATCH, currentPos);
+            }
+        }
+
+        if ((av1.getType() == Long.class) || (av1.getType() == Double.class)) {
+            AttributeValue<?> av2 = argNum();
+
+            if (av2 == null) {
+                return null;
+            } else if ((validation != null) && ((av2.getType() == Long.class) || (av2.getType() == Double.class))) {
+                return SOME_LONG;
+            } else if ((av1.getType() == Long.class) && (av2.getType() == Long.class)) {
+                return new AttributeValue<>(new LongRange((Long)av1.getValue(), (Long)av2.getValue()), LongRange.class);
+            } else if ((av2.getType() == Long.class) || (av2.getType() == Double.class)) {
+                double start = ((Number)av1.getValue()).doubleValue();
+                double end = ((Number)av2.getValue()).doubleValue();
+                return new AttributeValue<>(new DoubleRange(start, end), DoubleRange.class);
+            } else {
+                return fail(ParseError.TYPE_MISMATCH, currentPos);
+            }
+        }
+
+        return fail(ParseError.UNSUPPORTED_VALUE, currentPos);
+    }
+
+    private char readChar() {
+        char next = input.charAt(currentPos);
+        currentPos++;
+        return next;
+    }
+
+    /**
+     * Advances past the current token, i.e. up to the next space or the end
+     * of input. The token itself is {@code input[start, currentPos)}.
+     */
+    private void skipToken() {
+        int space = indexOf(' ', currentPos, inputEnd);
+        currentPos = (space < 0) ? inputEnd : space;
+    }
+
+    private AttributeValue<?> readQuotedString() {
+        int start = currentPos;
+        int quote = indexOf('\'', start, inputEnd);
+        if (quote < 0) {
+            currentPos = inputEnd;
+            return fail(ParseError.CLOSING_QUOTE_EXPECTED, currentPos);
+        }
+        currentPos = quote + 1;
+        return stringValue(start, quote);
+    }
+
+    private boolean acceptSpace() { //exactly one space
+        if (isLastArg()) {
+            fail(ParseError.MISSING_ARGUMENT, currentPos);
+            return false;
+        }
+        if (input.charAt(currentPos) != ' ') {
+            fail(ParseError.SPACE_EXPECTED, currentPos);
+            return false;
+        }
+
+        currentPos++;
+        if ((!isLastArg()) && (input.charAt(currentPos) == ' ')) {
+            fail(ParseError.SPACE_EXPECTED, currentPos);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds {@code c} in {@code input[from, to)}. Scans in bulk where the
+     * input allows it: Strings and builders via their intrinsified
+     * {@code indexOf} when the slice runs to the end of the input (it cannot
+     * be bounded, and a search past {@code to} would make parsing many
+     * slices of one buffer quadratic), UTF-8 bytes word at a time.
+     */
+    private int indexOf(char c, int from, int to) {
+        if (to == input.length()) {
+            if (input instanceof String) {
+                return ((String) input).indexOf(c, from);
+            } else if ((input instanceof StringBuilder) && ((c == ' ') || (c == '\''))) {
+                return ((StringBuilder) input).indexOf((c == ' ') ? " " : "'", from);
+            }
+        }
+        if ((input instanceof Utf8Sequence) && (c < 0x80)) {
+            return ((Utf8Sequence) input).indexOf((byte) c, from, to);
+        }
+
+        for (int i = from; i < to; i++) {
+            if (input.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Scans {@code input[start, end)} as an exact long, switching to a
+     * decimal parse only if a fraction or exponent shows up.
+     */
+    private AttributeValue<?> createNumericAttributeValue(int start, int end) {
+        int i = start;
+        boolean negative = (input.charAt(i) == '-');
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            return fail(ParseError.NUMBER_EXPECTED, i);
+        }
+
+        //accumulate negatively, Long.MIN_VALUE has no positive counterpart
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limit / 10;
+        long num = 0;
+        for (; i < end; i++) {
+            char c = input.charAt(i);
+            int digit = c - '0';
+            if ((digit < 0) || (digit > 9)) {
+                if ((c == '.') || (c == 'e') || (c == 'E')) {
+                    return createDecimalAttributeValue(start, end);
+                }
+                return fail(ParseError.NUMBER_EXPECTED, i);
+            }
+            if ((num < multiplyMin) || ((num = num * 10) < limit + digit)) {
+                return fail(ParseError.NUMBER_OUT_OF_RANGE, start);
+            }
+            num -= digit;
+        }
+
+        if (validation != null) {
+            return SOME_LONG;
+        }
+        return new AttributeValue<>(negative ? num : -num, Long.class);
+    }
+
+    private AttributeValue<?> createDecimalAttributeValue(int start, int end) {
+        if (!isDecimal(start, end)) {
+            return fail(ParseError.NUMBER_EXPECTED, end);
+        }
+
+        if (validation != null) {
+            int magnitude = decimalMagnitude(start, end);
+            if (magnitude < MAX_DOUBLE_MAGNITUDE) {
+                return SOME_DOUBLE;
+            } else if (magnitude > MAX_DOUBLE_MAGNITUDE) {
+                return fail(ParseError.NUMBER_OUT_OF_RANGE, start);
+            } //else borderline, let Double decide
+        }
+
+        double num = Double.parseDouble(substring(start, end));
+        if (Double.isInfinite(num)) {
+            return fail(ParseError.NUMBER_OUT_OF_RANGE, start);
+        }
+        return doubleValue(num);
+    }
+
+    /**
+     * Computes the decimal exponent of the most significant non-zero digit of
+     * a valid decimal, e.g. 2 for {@code 123.4} or {@code 1.234e2}. Zero has
+     * {@link Integer#MIN_VALUE}.
+     */
+    private int decimalMagnitude(int start, int end) {
+        int i = start;
+        if (input.charAt(i) == '-') {
+            i++;
+        }
+
+        int digits = 0; //significant digits before the point
+        int zeros = 0; //zeros after the point before the first significant digit
+        boolean significant = false;
+        for (; (i < end) && (input.charAt(i) != '.') && (input.charAt(i) != 'e') && (input.charAt(i) != 'E'); i++) {
+            significant |= (input.charAt(i) != '0');
+            if (significant) {
+                digits++;
+            }
+        }
+        if ((i < end) && (input.charAt(i) == '.')) {
+            for (i++; (i < end) && (input.charAt(i) != 'e') && (input.charAt(i) != 'E'); i++) {
+                if (input.charAt(i) != '0') {
+                    significant = true;
+                    break;
+                }
+                zeros++;
+            }
+            while ((i < end) && (input.charAt(i) != 'e') && (input.charAt(i) != 'E')) {
+                i++;
+            }
+        }
+        if (!significant) {
+            return Integer.MIN_VALUE;
+        }
+
+        long exponent = 0;
+        if (i < end) { //exponent, already checked to be well-formed
+            i++;
+            boolean negative = (input.charAt(i) == '-');
+            if ((input.charAt(i) == '-') || (input.charAt(i) == '+')) {
+                i++;
+            }
+            for (; i < end; i++) {
+                exponent = Math.min(exponent * 10 + (input.charAt(i) - '0'), Integer.MAX_VALUE / 2);
+            }
+            if (negative) {
+                exponent = -exponent;
+            }
+        }
+
+        return (int) (((digits > 0) ? digits - 1 : -(zeros + 1)) + exponent);
+    }
+
+    /**
+     * Checks for {@code -?digits(.digits)?([eE][+-]?digits)?}, so that
+     * anything passed to {@link Double#parseDouble(String)} is known to be
+     * valid.
+     */
+    private boolean isDecimal(int start, int end) {
+        int i = start;
+        if ((i < end) && (input.charAt(i) == '-')) {
+            i++;
+        }
+
+        int digitsEnd = skipDigits(i, end);
+        if (digitsEnd == i) {
+            return false;
+        }
+        i = digitsEnd;
+
+        if ((i < end) && (input.charAt(i) == '.')) {
+            digitsEnd = skipDigits(i + 1, end);
+            if (digitsEnd == i + 1) {
+                return false;
+            }
+            i = digitsEnd;
+        }
+
+        if ((i < end) && ((input.charAt(i) == 'e') || (input.charAt(i) == 'E'))) {
+            i++;
+            if ((i < end) && ((input.charAt(i) == '+') || (input.charAt(i) == '-'))) {
+                i++;
+            }
+            digitsEnd = skipDigits(i, end);
+            if (digitsEnd == i) {
+                return false;
+            }
+            i = digitsEnd;
+        }
+
+        return i == end;
+    }
+
+    private int skipDigits(int from, int to) {
+        int i = from;
+        while ((i < to) && (input.charAt(i) >= '0') && (input.charAt(i) <= '9')) {
+            i++;
+        }
+        return i;
+    }
+
+    private Constraint<?> createConstraint(String attributeName, AttributeValue<?> av, OperatorDefinition operator) {
+        if (! isLastArg()) {
+            return fail(ParseError.END_OF_INPUT_EXPECTED, currentPos);
+        }
+
+        if (validation != null) {
+            validation.succeed(operator);
+            return SOME_CONSTRAINT;
+        }
+        parsedOperator = operator;
+        return new Constraint<>(attributeName, av, operator.getOperator());
+    }
+
+    private AttributeValue<?> doubleValue(double num) {
+        return (validation != null) ? SOME_DOUBLE : new AttributeValue<>(num, Double.class);
+    }
+
+    private AttributeValue<?> dateValue(long millis) {
+        return (validation != null) ? SOME_DATE : new AttributeValue<>(new Date(millis), Date.class);
+    }
+
+    private AttributeValue<?> timeValue(int millisOfDay) {
+        return (validation != null) ? SOME_TIME : new AttributeValue<>(new Time(millisOfDay), Time.class);
+    }
+
+    private AttributeValue<?> stringValue(int from, int to) {
+        return (validation != null) ? SOME_STRING : new AttributeValue<>(substring(from, to), String.class);
+    }
+
+    private String substring(int from, int to) {
+        if (input instanceof Utf8Sequence) {
+            return ((Utf8Sequence) input).decode(from, to);
+        }
+        return input.subSequence(from, to).toString();
+    }
+
+    private boolean isLastArg() {
+        if (currentPos < inputEnd) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records the error, always returns {@code null} so that it can be used
+     * as {@code return fail(...)}.
+     */
+    private <T> T fail(ParseError error, int pos) {
+        this.error = error;
+        this.errorPos = pos;
+        return null;
+    }
+}
@@ -0,0 +1,100 @@
+package cz.muni.fi.langparser;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * Read-only {@link CharSequence} view of UTF-8 encoded bytes in a
+ * {@link ByteBuffer}, indexed like the buffer itself (absolute positions).
+ * {@link #charAt(int)} returns single bytes, which is exact for ASCII. Bytes
+ * of multi-byte characters are all above {@code 0x7F}, so they never match
+ * any character of the grammar (spaces, quotes, digits, ...) and tokens
+ * always end on character boundaries. Only the values that are materialized
+ * via {@link #decode(int, int)} are actually decoded.
+ * <p>
+ * The buffer's position and limit are never changed.
+ */
+final class Utf8Sequence implements CharSequence {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+
+    Utf8Sequence(ByteBuffer buffer) {
+        this(buffer, 0, buffer.limit());
+    }
+
+    private Utf8Sequence(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if ((from < 0) || (from > to) || (to > length())) {
+            throw new IndexOutOfBoundsException("Invalid slice [" + from + ", " + to + ") of length " + length());
+        }
+        return new Utf8Sequence(buffer, start + from, start + to);
+    }
+
+    /**
+     * Finds the byte in {@code [from, to)}, eight bytes at a time.
+     *
+     * @return its index or -1
+     */
+    int indexOf(byte b, int from, int to) {
+        int i = from;
+        long pattern = (b & 0xFFL) * 0x0101010101010101L;
+        boolean bigEndian = (buffer.order() == ByteOrder.BIG_ENDIAN);
+        for (; i + 8 <= to; i += 8) {
+            long x = buffer.getLong(start + i) ^ pattern; //zero bytes where b is
+            long found = ~(((x & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL) | x | 0x7F7F7F7F7F7F7F7FL);
+            if (found != 0) {
+                int bit = bigEndian ? Long.numberOfLeadingZeros(found) : Long.numberOfTrailingZeros(found);
+                return i + (bit >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (buffer.get(start + i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the bytes {@code [from, to)}, malformed input is replaced by
+     * {@code U+FFFD}.
+     */
+    String decode(int from, int to) {
+        int length = to - from;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start + from, length, UTF_8);
+        }
+
+        byte[] bytes = new byte[length];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(start + from);
+        slice.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return decode(0, length());
+    }
+}
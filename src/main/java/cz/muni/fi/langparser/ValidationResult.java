@@ -0,0 +1,134 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+
+/**
+ * Outcome of {@link LangParser#validate(CharSequence, int, int, ValidationResult)}:
+ * whether the expression is valid, its operator and where its arguments are,
+ * or the error it was rejected with. Argument spans are offsets into the
+ * validated input and include the quotes of quoted Strings, so that
+ * {@code src.subSequence(getArgumentStart(i), getArgumentEnd(i))} is the
+ * argument as written.
+ * <p>
+ * Instances are mutable and meant to be reused, each validation overwrites
+ * the previous outcome. Once a result has seen an expression of the same
+ * shape, validating into it allocates nothing. Not thread-safe, use one
+ * result per thread.
+ */
+public final class ValidationResult {
+
+    private ParseError error;
+    private int errorPosition = -1;
+    private OperatorDefinition operator;
+    private int argumentCount;
+    private int[] spans = new int[4];
+    private Tokenizer tokenizer;
+
+    public boolean isValid() {
+        return (operator != null) && (error == null);
+    }
+
+    /**
+     * @return the error or {@code null} if the expression is valid
+     */
+    public ParseError getError() {
+        return error;
+    }
+
+    /**
+     * @return offset of the error or -1 if the expression is valid
+     */
+    public int getErrorPosition() {
+        return errorPosition;
+    }
+
+    /**
+     * @return operator of the valid expression or {@code null}
+     */
+    public Operator getOperator() {
+        return (operator == null) ? null : operator.getOperator();
+    }
+
+    /**
+     * @return the operator as written in the valid expression or
+     * {@code null}, this tells e.g. {@code #in} from {@code #eq}
+     */
+    public OperatorDefinition getOperatorDefinition() {
+        return operator;
+    }
+
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if there is no such argument
+     */
+    public int getArgumentStart(int index) {
+        checkArgumentIndex(index);
+        return spans[2 * index];
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if there is no such argument
+     */
+    public int getArgumentEnd(int index) {
+        checkArgumentIndex(index);
+        return spans[2 * index + 1];
+    }
+
+    private void checkArgumentIndex(int index) {
+        if ((index < 0) || (index >= argumentCount)) {
+            throw new IndexOutOfBoundsException("Argument " + index + " of " + argumentCount);
+        }
+    }
+
+    Tokenizer tokenizer(CharSequence input, int start, int end, AttributeType type) {
+        if (tokenizer == null) {
+            tokenizer = new Tokenizer(input, start, end, type);
+        } else {
+            tokenizer.reset(input, start, end, type);
+        }
+        return tokenizer;
+    }
+
+    void reset() {
+        error = null;
+        errorPosition = -1;
+        operator = null;
+        argumentCount = 0;
+    }
+
+    void addArgument(int start, int end) {
+        if (2 * argumentCount + 1 >= spans.length) {
+            int[] grown = new int[spans.length * 2];
+            System.arraycopy(spans, 0, grown, 0, spans.length);
+            spans = grown;
+        }
+        spans[2 * argumentCount] = start;
+        spans[2 * argumentCount + 1] = end;
+        argumentCount++;
+    }
+
+    void succeed(OperatorDefinition operator) {
+        this.operator = operator;
+    }
+
+    void fail(ParseError error, int errorPosition) {
+        this.error = error;
+        this.errorPosition = errorPosition;
+        this.operator = null;
+        this.argumentCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        if (isValid()) {
+            return "ValidationResult{" + operator.getName() + ", " + argumentCount + " arguments}";
+        }
+        if (error == null) {
+            return "ValidationResult{}";
+        }
+        return "ValidationResult{" + error.getMessage() + " at " + errorPosition + "}";
+    }
+}
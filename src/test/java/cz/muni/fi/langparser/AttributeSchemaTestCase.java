@@ -0,0 +1,62 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.LongRange;
+import java.text.ParseException;
+import java.util.Date;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class AttributeSchemaTestCase {
+
+    private final AttributeSchema schema = new AttributeSchema()
+            .register("count", AttributeType.LONG)
+            .register("ratio", AttributeType.DOUBLE)
+            .register("timestamp", AttributeType.DATE)
+            .register("time", AttributeType.TIME)
+            .register("message", AttributeType.STRING);
+
+    @Test
+    public void testParseTyped() throws ParseException {
+        Constraint<?> constraint = schema.parse("message", "#eq 42");
+        assertEquals(String.class, constraint.getAttributeValue().getType());
+        assertEquals("42", constraint.getAttributeValue().getValue());
+
+        constraint = schema.parse("message", "#eq 'quoted String'");
+        assertEquals("quoted String", constraint.getAttributeValue().getValue());
+
+        constraint = schema.parse("ratio", "#ge 3");
+        assertEquals(Double.class, constraint.getAttributeValue().getType());
+        assertEquals(3.0, constraint.getAttributeValue().getValue());
+
+        constraint = schema.parse("ratio", "#rng 1 2");
+        assertEquals(new DoubleRange(1, 2), constraint.getAttributeValue().getValue());
+
+        constraint = schema.parse("count", "#rng 1 2");
+        assertEquals(LongRange.class, constraint.getAttributeValue().getType());
+
+        constraint = schema.parse("timestamp", "#eq 2013-04-01");
+        assertEquals(Date.class, constraint.getAttributeValue().getType());
+
+        constraint = schema.parse("time", "#lt 12:00:00");
+        assertEquals(new Time(12, 0, 0), constraint.getAttributeValue().getValue());
+
+        constraint = schema.parse("unknown", "#eq 42");
+        assertEquals(Long.class, constraint.getAttributeValue().getType());
+    }
+
+    @Test
+    public void testFailTypeMismatch() {
+        assertEquals(ParseError.TYPE_MISMATCH, schema.tryParse("count", "#lt 2.5").getError());
+        assertEquals(ParseError.TYPE_MISMATCH, schema.tryParse("count", "#pref abc").getError());
+        assertEquals(ParseError.TYPE_MISMATCH, schema.tryParse("message", "#lt 5").getError());
+        assertEquals(ParseError.NUMBER_EXPECTED, schema.tryParse("count", "#eq ERROR").getError());
+        assertEquals(ParseError.UNEXPECTED_END_OF_INPUT, schema.tryParse("timestamp", "#gt 2013").getError());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFailConflictingRegistration() {
+        schema.register("count", AttributeType.LONG);
+        schema.register("count", AttributeType.STRING);
+    }
+}
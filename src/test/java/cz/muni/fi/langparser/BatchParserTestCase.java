@@ -0,0 +1,61 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class BatchParserTestCase {
+
+    @Test
+    public void testParseSubscription() {
+        Map<String, String> subscription = new LinkedHashMap<>();
+        subscription.put("level", "#eq ERROR");
+        subscription.put("priority", "#ge 3");
+        subscription.put("source", "#pref cz.muni.");
+        subscription.put("broken", "#lt blabla");
+
+        BatchParser parser = new BatchParser();
+        BatchResult result = parser.parse(subscription);
+        parser.shutdown();
+
+        assertEquals(4, result.size());
+        assertTrue(result.hasErrors());
+        assertEquals(Operator.EQUALS, result.getConstraint(0).getOperator());
+        assertEquals(Operator.GREATER_THAN_OR_EQUAL_TO, result.getConstraint(1).getOperator());
+        assertEquals(Operator.PREFIX, result.getConstraint(2).getOperator());
+        assertNull(result.getConstraint(3));
+        assertTrue(result.getError(3) instanceof ParseException);
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().containsKey(3));
+    }
+
+    @Test
+    public void testParseForked() {
+        int size = 10000;
+        String[] attributeNames = new String[size];
+        String[] expressions = new String[size];
+        for (int i = 0; i < size; i++) {
+            attributeNames[i] = "attribute" + i;
+            expressions[i] = (i % 100 == 0) ? "#lt " : "#lt " + i;
+        }
+
+        BatchParser parser = new BatchParser(new ForkJoinPool(4), 16);
+        BatchResult result = parser.parse(attributeNames, expressions);
+        parser.shutdown();
+
+        assertEquals(size / 100, result.getErrors().size());
+        for (int i = 0; i < size; i++) {
+            if (i % 100 == 0) {
+                assertNull(result.getConstraint(i));
+                assertNotNull(result.getError(i));
+            } else {
+                assertEquals(attributeNames[i], result.getConstraint(i).getAttributeName());
+                assertEquals((long) i, result.getConstraint(i).getAttributeValue().getValue());
+            }
+        }
+    }
+}
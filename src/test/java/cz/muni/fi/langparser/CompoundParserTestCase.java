@@ -0,0 +1,121 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.text.ParseException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class CompoundParserTestCase {
+
+    @Test
+    public void testParseSingle() throws ParseException {
+        CompiledExpression expression = new CompoundParser().parse("level #eq 'quoted String'");
+        assertEquals(1, expression.getTerms().size());
+        Constraint<?> constraint = expression.getTerms().get(0).getConstraints().get(0);
+        assertEquals("level", constraint.getAttributeName());
+        assertEquals("quoted String", constraint.getAttributeValue().getValue());
+    }
+
+    @Test
+    public void testParseDnf() throws ParseException {
+        CompiledExpression expression = new CompoundParser().parse(
+                "(level #eq ERROR || level #eq WARN) && (source #pref cz.muni. || priority #ge 3) && level #eq ERROR");
+
+        //ERROR&src, ERROR&prio, WARN&src&ERROR, WARN&prio&ERROR
+        assertEquals(4, expression.getTerms().size());
+        assertEquals(4, expression.getConstraints().size());
+        assertEquals(2, expression.getTerms().get(0).getConstraints().size());
+
+        Constraint<?> error = expression.getTerms().get(0).getConstraints().get(0);
+        assertSame(error, expression.getTerms().get(1).getConstraints().get(0));
+        assertSame(error, expression.getTerms().get(3).getConstraints().get(2));
+    }
+
+    @Test
+    public void testParseNegation() throws ParseException {
+        CompiledExpression expression = new CompoundParser().parse("!(priority #lt 3 || source #pref cz.muni.)");
+
+        assertEquals(1, expression.getTerms().size());
+        Conjunction term = expression.getTerms().get(0);
+        assertEquals(0, term.getConstraints().size());
+        assertEquals(2, term.getNegatedConstraints().size());
+        //not rewritten to #ge 3, which would not match events without priority
+        assertEquals(Operator.LESS_THAN, term.getNegatedConstraints().get(0).getOperator());
+        assertEquals(3L, term.getNegatedConstraints().get(0).getAttributeValue().getValue());
+        assertEquals(Operator.PREFIX, term.getNegatedConstraints().get(1).getOperator());
+    }
+
+    @Test
+    public void testContradictionDropped() throws ParseException {
+        CompiledExpression expression = new CompoundParser().parse("a #eq x && !a #eq x || b #eq y");
+        assertEquals(1, expression.getTerms().size());
+        assertEquals("b", expression.getTerms().get(0).getConstraints().get(0).getAttributeName());
+    }
+
+    @Test
+    public void testContradictionByValue() throws ParseException {
+        CompoundParser parser = new CompoundParser(64, new ConstraintCache(100));
+        assertEquals(0, parser.parse("a #eq x && !a #eq 'x'").getTerms().size());
+        assertEquals(0, parser.parse("a #rng 1 5 && !a #rng 1 5").getTerms().size());
+        assertEquals(0, parser.parse("a #lt 5 && !(a #lt 5)").getTerms().size());
+        assertEquals(1, parser.parse("a #lt 5 && !(a #ge 5)").getTerms().size());
+
+        CompiledExpression duplicate = parser.parse("a #in 1 2 && a #in 2 1");
+        assertEquals(1, duplicate.getTerms().get(0).getConstraints().size());
+    }
+
+    @Test
+    public void testSharedByValue() throws ParseException {
+        for (CompoundParser parser : new CompoundParser[] {new CompoundParser(), new CompoundParser(64, new ConstraintCache(100))}) {
+            CompiledExpression expression = parser.parse("(x #eq 5 && y #eq 1) || (x #eq 05 && z #eq 2)");
+            assertEquals(3, expression.getConstraints().size());
+            assertSame(expression.getTerms().get(0).getConstraints().get(0), expression.getTerms().get(1).getConstraints().get(0));
+        }
+    }
+
+    @Test
+    public void testNonNativeNotShared() throws ParseException {
+        OperatorRegistry registry = OperatorRegistry.getDefault();
+        registry.register("#ne", Operator.EQUALS, ArgumentSyntax.ANY, false);
+        try {
+            for (CompoundParser parser : new CompoundParser[] {new CompoundParser(), new CompoundParser(64, new ConstraintCache(100))}) {
+                assertEquals(2, parser.parse("x #eq 5 || x #ne 5").getConstraints().size());
+                assertEquals(1, parser.parse("x #eq 5 && !x #ne 5").getTerms().size());
+            }
+        } finally {
+            registry.unregister("#ne");
+        }
+    }
+
+    @Test
+    public void testSharedThroughCache() throws ParseException {
+        ConstraintCache cache = new ConstraintCache(100);
+        CompoundParser parser = new CompoundParser(64, cache);
+        CompiledExpression first = parser.parse("a #eq x || b #ge 1");
+        CompiledExpression second = parser.parse("b #ge 1 && c #pref z");
+        assertSame(first.getTerms().get(1).getConstraints().get(0), second.getTerms().get(0).getConstraints().get(0));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testFailTooComplex() throws ParseException {
+        new CompoundParser(8, null).parse("(a #eq 1 || a #eq 2) && (b #eq 1 || b #eq 2) && (c #eq 1 || c #eq 2) && (d #eq 1 || d #eq 2)");
+    }
+
+    @Test
+    public void testFailPosition() {
+        try {
+            new CompoundParser().parse("a #eq x && b #lt blabla");
+            fail();
+        } catch (ParseException e) {
+            assertEquals("a #eq x && b #lt ".length(), e.getErrorOffset());
+        }
+
+        try {
+            new CompoundParser().parse("(a #eq x");
+            fail();
+        } catch (ParseException e) {
+            assertEquals(8, e.getErrorOffset());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.text.ParseException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ConstraintCacheTestCase {
+
+    private static final String ATTRIBUTE_NAME = "attribute";
+
+    @Test
+    public void testSharedInstance() throws ParseException {
+        ConstraintCache cache = new ConstraintCache(100);
+
+        Constraint<?> constraint = cache.parse(ATTRIBUTE_NAME, "#eq ERROR");
+        assertEquals(Operator.EQUALS, constraint.getOperator());
+        assertEquals("ERROR", constraint.getAttributeValue().getValue());
+        assertSame(constraint, cache.parse(ATTRIBUTE_NAME, "#eq ERROR"));
+        assertNotSame(constraint, cache.parse("other", "#eq ERROR"));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testEviction() throws ParseException {
+        ConstraintCache cache = new ConstraintCache(4, 1);
+
+        Constraint<?> first = cache.parse(ATTRIBUTE_NAME, "#ge 0");
+        for (int i = 1; i < 10; i++) {
+            cache.parse(ATTRIBUTE_NAME, "#ge " + i);
+            cache.parse(ATTRIBUTE_NAME, "#ge 0"); //keep the first one recently used
+        }
+
+        assertEquals(4, cache.size());
+        assertEquals(6, cache.getEvictionCount());
+        assertSame(first, cache.parse(ATTRIBUTE_NAME, "#ge 0"));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testFailNotCached() throws ParseException {
+        ConstraintCache cache = new ConstraintCache(100);
+        try {
+            cache.parse(ATTRIBUTE_NAME, "#lt blabla");
+        } finally {
+            assertEquals(0, cache.size());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.text.ParseException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ConstraintCanonicalizerTestCase {
+
+    private static final String ATTRIBUTE_NAME = "attribute";
+
+    @Test
+    public void testInequalities() throws ParseException {
+        ConstraintCanonicalizer canonicalizer = new ConstraintCanonicalizer();
+
+        Constraint<?> constraint = canonicalizer.parse(ATTRIBUTE_NAME, "#gt 4");
+        assertEquals(Operator.GREATER_THAN_OR_EQUAL_TO, constraint.getOperator());
+        assertEquals(5L, constraint.getAttributeValue().getValue());
+        assertSame(constraint, canonicalizer.parse(ATTRIBUTE_NAME, "#ge 5"));
+
+        constraint = canonicalizer.parse(ATTRIBUTE_NAME, "#le 20");
+        assertEquals(Operator.LESS_THAN, constraint.getOperator());
+        assertEquals(21L, constraint.getAttributeValue().getValue());
+        assertSame(constraint, canonicalizer.parse(ATTRIBUTE_NAME, "#lt 21"));
+
+        constraint = canonicalizer.parse(ATTRIBUTE_NAME, "#le 9223372036854775807");
+        assertEquals(Operator.LESS_THAN_OR_EQUAL_TO, constraint.getOperator());
+
+        assertNotSame(canonicalizer.parse(ATTRIBUTE_NAME, "#ge 5"), canonicalizer.parse("other", "#ge 5"));
+        assertEquals(4, canonicalizer.size());
+    }
+
+    @Test
+    public void testInterning() throws ParseException {
+        ConstraintCanonicalizer canonicalizer = new ConstraintCanonicalizer();
+
+        Constraint<?> eq = canonicalizer.parse(new String(ATTRIBUTE_NAME), "#eq ERROR");
+        Constraint<?> pref = canonicalizer.parse(new String(ATTRIBUTE_NAME), "#pref ERROR");
+        assertSame(eq.getAttributeName(), pref.getAttributeName());
+        assertSame(eq.getAttributeValue().getValue(), pref.getAttributeValue().getValue());
+        assertSame(eq, canonicalizer.parse(ATTRIBUTE_NAME, "#eq 'ERROR'"));
+    }
+
+    @Test
+    public void testRange() throws ParseException {
+        ConstraintCanonicalizer canonicalizer = new ConstraintCanonicalizer();
+
+        Constraint<?> range = canonicalizer.parse(ATTRIBUTE_NAME, "#rng 10 20");
+        assertEquals(Operator.RANGE, range.getOperator());
+        assertSame(range, canonicalizer.parse(ATTRIBUTE_NAME, "#rng 10 20"));
+
+        assertSame(canonicalizer.parse(ATTRIBUTE_NAME, "#eq 7"), canonicalizer.parse(ATTRIBUTE_NAME, "#rng 7 7"));
+    }
+
+    @Test
+    public void testNonNativeOperator() throws ParseException {
+        ConstraintCanonicalizer canonicalizer = new ConstraintCanonicalizer();
+        OperatorRegistry registry = OperatorRegistry.getDefault();
+
+        Constraint<?> in = canonicalizer.parse(ATTRIBUTE_NAME, "#in 200 404");
+        assertSame(in, canonicalizer.parse(ATTRIBUTE_NAME, "#in 200 404"));
+        assertSame(in, canonicalizer.canonicalize(LangParser.parse(ATTRIBUTE_NAME, "#in 200 404")));
+
+        Constraint<?> asEquality = canonicalizer.canonicalize(LangParser.parse(ATTRIBUTE_NAME, "#in 200 404"), registry.get("#eq"));
+        assertNotSame(in, asEquality);
+        assertSame(asEquality, canonicalizer.canonicalize(LangParser.parse(ATTRIBUTE_NAME, "#in 200 404"), registry.get("#eq")));
+        assertEquals(2, canonicalizer.size());
+
+        Constraint<?> suff = canonicalizer.parse(ATTRIBUTE_NAME, "#suff ERROR");
+        assertNotSame(suff, canonicalizer.parse(ATTRIBUTE_NAME, "#pref ERROR"));
+        assertSame(suff, canonicalizer.parse(ATTRIBUTE_NAME, "#suff 'ERROR'"));
+        assertNotSame(canonicalizer.parse(ATTRIBUTE_NAME, "#contains ERROR"), canonicalizer.parse(ATTRIBUTE_NAME, "#eq ERROR"));
+    }
+}
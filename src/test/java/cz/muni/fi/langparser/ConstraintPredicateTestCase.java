@@ -0,0 +1,121 @@
+package cz.muni.fi.langparser;
+
+import java.text.ParseException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ConstraintPredicateTestCase {
+
+    private static ConstraintPredicate compile(String expression) throws ParseException {
+        return ConstraintPredicate.compile(LangParser.parse("attribute", expression));
+    }
+
+    @Test
+    public void testLong() throws ParseException {
+        ConstraintPredicate lt = compile("#lt 5");
+        assertTrue(lt.test(4));
+        assertFalse(lt.test(5));
+        assertTrue(lt.test(Long.MIN_VALUE));
+        assertFalse(lt.test("4"));
+
+        assertTrue(compile("#le 5").test(5));
+        assertFalse(compile("#gt 5").test(5));
+        assertTrue(compile("#ge 5").test(5));
+        assertTrue(compile("#eq 5").test(5));
+        assertFalse(compile("#eq 5").test(6));
+        assertFalse(compile("#gt 9223372036854775807").test(Long.MAX_VALUE));
+        assertFalse(compile("#lt -9223372036854775808").test(Long.MIN_VALUE));
+
+        ConstraintPredicate rng = compile("#rng 10 20");
+        assertTrue(rng.test(10));
+        assertTrue(rng.test(20));
+        assertFalse(rng.test(21));
+
+        ConstraintPredicate in = compile("#in 200 404");
+        assertTrue(in.test(404));
+        assertFalse(in.test(500));
+    }
+
+    @Test
+    public void testDouble() throws ParseException {
+        ConstraintPredicate lt = compile("#lt 2.5");
+        assertTrue(lt.test(2.4999));
+        assertFalse(lt.test(2.5));
+        assertTrue(lt.test(2));
+        assertFalse(compile("#gt 2.5").test(2.5));
+        assertTrue(compile("#gt 2.5").test(Math.nextUp(2.5)));
+
+        ConstraintPredicate rng = compile("#rng 1 2.5");
+        assertTrue(rng.test(1.0));
+        assertTrue(rng.test(2.5));
+        assertFalse(rng.test(Double.NaN));
+    }
+
+    @Test
+    public void testDateTime() throws ParseException {
+        ConstraintPredicate ge = compile("#ge 2013-01-01T00:00:00Z");
+        assertTrue(ge.test(1356998400000L));
+        assertFalse(ge.test(1356998399999L));
+
+        ConstraintPredicate hours = compile("#rng 08:00:00 16:00:00");
+        assertTrue(hours.test(new Time(12, 0, 0).getMillisOfDay()));
+        assertFalse(hours.test(new Time(7, 59, 59).getMillisOfDay()));
+    }
+
+    @Test
+    public void testString() throws ParseException {
+        assertTrue(compile("#eq ERROR").test("ERROR"));
+        assertTrue(compile("#eq ERROR").test(new StringBuilder("ERROR")));
+        assertFalse(compile("#eq ERROR").test("WARN"));
+
+        ConstraintPredicate pref = compile("#pref cz.muni.");
+        assertTrue(pref.test("cz.muni.fi"));
+        assertTrue(pref.test(new StringBuilder("cz.muni.fi")));
+        assertFalse(pref.test("cz.mu"));
+
+        assertTrue(compile("#suff .log").test(new StringBuilder("app.log")));
+        assertTrue(compile("#contains full").test("disk full"));
+
+        ConstraintPredicate in = compile("#in 'a.cz' 'b.cz'");
+        assertTrue(in.test(new StringBuilder("b.cz")));
+        assertFalse(in.test("c.cz"));
+        assertFalse(in.test("b.c"));
+    }
+
+    @Test
+    public void testDefinition() throws ParseException {
+        ParseResult result = LangParser.tryParse("attribute", "#in 200 404");
+        assertEquals("#in", result.getOperatorDefinition().getName());
+        assertFalse(result.getOperatorDefinition().isNative());
+        assertTrue(ConstraintPredicate.compile(result.getConstraint(), result.getOperatorDefinition()).test(200));
+
+        assertEquals("#eq", LangParser.tryParse("attribute", "#eq 200").getOperatorDefinition().getName());
+        assertTrue(LangParser.tryParse("attribute", "#eq 200").getOperatorDefinition().isNative());
+
+        try {
+            ConstraintPredicate.compile(result.getConstraint(), OperatorRegistry.getDefault().get("#eq"));
+            fail("A set is not an equality argument");
+        } catch (IllegalArgumentException ex) {
+            //OK
+        }
+
+        result = LangParser.tryParse("attribute", "#suff .log");
+        assertEquals("#suff", result.getOperatorDefinition().getName());
+        assertFalse(result.getOperatorDefinition().isNative());
+        assertSame(result.getOperatorDefinition(), OperatorRegistry.getDefault().definitionOf(result.getConstraint()));
+        ConstraintPredicate suff = ConstraintPredicate.compile(result.getConstraint(), result.getOperatorDefinition());
+        assertTrue(suff.test("app.log"));
+        assertFalse(suff.test(".logrotate"));
+        try {
+            ConstraintPredicate.compile(result.getConstraint(), OperatorRegistry.getDefault().get("#pref"));
+            fail("A suffix is not a prefix argument");
+        } catch (IllegalArgumentException ex) {
+            //OK
+        }
+
+        result = LangParser.tryParse("attribute", "#contains full");
+        assertEquals("#contains", result.getOperatorDefinition().getName());
+        assertSame(result.getOperatorDefinition(), OperatorRegistry.getDefault().definitionOf(result.getConstraint()));
+        assertTrue(ConstraintPredicate.compile(result.getConstraint()).test("disk full"));
+    }
+}
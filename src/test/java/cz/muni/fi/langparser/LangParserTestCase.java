@@ -3,7 +3,14 @@ package cz.muni.fi.langparser;
 import cz.muni.fi.publishsubscribe.countingtree.Constraint;
 import cz.muni.fi.publishsubscribe.countingtree.LongRange;
 import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.text.ParseException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
@@ -158,6 +165,26 @@ public class LangParserTestCase { //TODO test the rest
         assertEquals(Operator.EQUALS, constraint.getOperator());
     }
     
+    @Test
+    public void testParseLongArgsEQ() throws ParseException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("word ");
+        }
+        String value = sb.toString();
+
+        LangParser parser = new LangParser(ATTRIBUTE_NAME, "#eq '" + value + "'");
+        Constraint<?> constraint = parser.parse();
+        assertEquals(String.class, constraint.getAttributeValue().getType());
+        assertEquals(value, constraint.getAttributeValue().getValue());
+
+        value = value.replace(' ', '_');
+        parser = new LangParser(ATTRIBUTE_NAME, "#eq " + value);
+        constraint = parser.parse();
+        assertEquals(String.class, constraint.getAttributeValue().getType());
+        assertEquals(value, constraint.getAttributeValue().getValue());
+    }
+    
     @Test(expected = ParseException.class)
     public void testFailNoArgsButSpaceEQ() throws IndexOutOfBoundsException, UnsupportedOperationException, ParseException {
         LangParser parser = new LangParser(ATTRIBUTE_NAME, "#eq  ");
@@ -227,4 +254,344 @@ public class LangParserTestCase { //TODO test the rest
         LangParser parser = new LangParser(ATTRIBUTE_NAME, "#rng 10  30");
         parser.parse();
     }
+    
+    @Test
+    public void testParseSlice() throws ParseException {
+        StringBuilder buffer = new StringBuilder("xx#pref abc#eq 'quoted String'#rng 10 20 yy");
+
+        Constraint<?> constraint = LangParser.parse(ATTRIBUTE_NAME, buffer, 2, 11);
+        assertEquals(Operator.PREFIX, constraint.getOperator());
+        assertEquals("abc", constraint.getAttributeValue().getValue());
+
+        constraint = LangParser.parse(ATTRIBUTE_NAME, buffer, 11, 30);
+        assertEquals(Operator.EQUALS, constraint.getOperator());
+        assertEquals("quoted String", constraint.getAttributeValue().getValue());
+
+        constraint = LangParser.parse(ATTRIBUTE_NAME, buffer, 30, 40);
+        assertEquals(Operator.RANGE, constraint.getOperator());
+        assertSame(20L, ((LongRange)(constraint.getAttributeValue().getValue())).getEnd());
+    }
+    
+    @Test
+    public void testParseSliceStopsAtEnd() {
+        for (CharSequence input : new CharSequence[] {"#pref 'abc' def", new StringBuilder("#pref 'abc' def")}) {
+            ParseResult result = LangParser.tryParse(ATTRIBUTE_NAME, input, 0, 11);
+            assertEquals("abc", result.getConstraint().getAttributeValue().getValue());
+
+            result = LangParser.tryParse(ATTRIBUTE_NAME, input, 0, 10);
+            assertEquals(ParseError.CLOSING_QUOTE_EXPECTED, result.getError());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testParseManySlicesLinear() {
+        int lines = 400000;
+        StringBuilder sb = new StringBuilder(lines * 4);
+        for (int i = 0; i < lines; i++) {
+            sb.append("#eq\n");
+        }
+        String document = sb.toString();
+
+        //a search running past each slice would take minutes here
+        for (int i = 0; i < lines; i++) {
+            ParseResult result = LangParser.tryParse(ATTRIBUTE_NAME, document, 4 * i, 4 * i + 3);
+            assertEquals(ParseError.MISSING_ARGUMENT, result.getError());
+        }
+    }
+
+    @Test
+    public void testParseHeapByteBuffer() throws ParseException {
+        byte[] bytes = "xx#eq 'quoted String with some length' yy'".getBytes(Charset.forName("UTF-8"));
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(order);
+            buffer.position(2).limit(bytes.length - 4);
+            assertEquals("quoted String with some length", LangParser.parse(ATTRIBUTE_NAME, buffer).getAttributeValue().getValue());
+
+            buffer.limit(30);
+            assertEquals(ParseError.CLOSING_QUOTE_EXPECTED, LangParser.tryParse(ATTRIBUTE_NAME, buffer).getError());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testFailTruncatedSlice() throws IndexOutOfBoundsException, ParseException {
+        LangParser.parse(ATTRIBUTE_NAME, "#lt 42", 0, 4);
+    }
+    
+    @Test
+    public void testTryParse() {
+        ParseResult result = LangParser.tryParse(ATTRIBUTE_NAME, "#eq bazinga");
+        assertTrue(result.isSuccess());
+        assertNull(result.getError());
+        assertEquals("bazinga", result.getConstraint().getAttributeValue().getValue());
+
+        result = LangParser.tryParse(ATTRIBUTE_NAME, "");
+        assertFalse(result.isSuccess());
+        assertNull(result.getConstraint());
+        assertEquals(ParseError.UNSUPPORTED_OPERATOR, result.getError());
+        assertEquals(0, result.getErrorPosition());
+
+        result = LangParser.tryParse(ATTRIBUTE_NAME, "#lt ");
+        assertEquals(ParseError.MISSING_ARGUMENT, result.getError());
+        assertEquals(4, result.getErrorPosition());
+
+        result = LangParser.tryParse(ATTRIBUTE_NAME, "#lt");
+        assertEquals(ParseError.MISSING_ARGUMENT, result.getError());
+
+        result = LangParser.tryParse(ATTRIBUTE_NAME, "#lt 10 20");
+        assertEquals(ParseError.END_OF_INPUT_EXPECTED, result.getError());
+        assertEquals(6, result.getErrorPosition());
+
+        result = LangParser.tryParse(ATTRIBUTE_NAME, "#pref 'no closing quote");
+        assertEquals(ParseError.CLOSING_QUOTE_EXPECTED, result.getError());
+
+        result = LangParser.tryParse(ATTRIBUTE_NAME, "#rng 10 dvanast");
+        assertEquals(ParseError.NUMBER_EXPECTED, result.getError());
+    }
+    
+    @Test
+    public void testParseDateTime() throws ParseException {
+        LangParser parser = new LangParser(ATTRIBUTE_NAME, "#ge 2012-01-15T10:20:30");
+        Constraint<?> constraint = parser.parse();
+        assertEquals(Date.class, constraint.getAttributeValue().getType());
+        assertEquals(new GregorianCalendar(2012, Calendar.JANUARY, 15, 10, 20, 30).getTime(), constraint.getAttributeValue().getValue());
+
+        parser = new LangParser(ATTRIBUTE_NAME, "#eq 2012-02-29");
+        constraint = parser.parse();
+        assertEquals(Date.class, constraint.getAttributeValue().getType());
+        assertEquals(new GregorianCalendar(2012, Calendar.FEBRUARY, 29).getTime(), constraint.getAttributeValue().getValue());
+
+        Calendar utc = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        utc.clear();
+        utc.set(1999, Calendar.DECEMBER, 31, 23, 59, 59);
+        utc.set(Calendar.MILLISECOND, 500);
+        parser = new LangParser(ATTRIBUTE_NAME, "#lt 1999-12-31T23:59:59.5Z");
+        constraint = parser.parse();
+        assertEquals(utc.getTime(), constraint.getAttributeValue().getValue());
+
+        parser = new LangParser(ATTRIBUTE_NAME, "#lt 2000-01-01T01:29:59.5+01:30");
+        constraint = parser.parse();
+        assertEquals(utc.getTime(), constraint.getAttributeValue().getValue());
+    }
+    
+    @Test
+    public void testParseTime() throws ParseException {
+        LangParser parser = new LangParser(ATTRIBUTE_NAME, "#le 08:30:15");
+        Constraint<?> constraint = parser.parse();
+        assertEquals(Time.class, constraint.getAttributeValue().getType());
+        assertEquals(new Time(8, 30, 15), constraint.getAttributeValue().getValue());
+
+        parser = new LangParser(ATTRIBUTE_NAME, "#rng 08:00:00 16:30:00");
+        constraint = parser.parse();
+        assertEquals(TimeRange.class, constraint.getAttributeValue().getType());
+        assertEquals(new TimeRange(new Time(8, 0, 0), new Time(16, 30, 0)), constraint.getAttributeValue().getValue());
+    }
+    
+    @Test
+    public void testParseDateRNG() throws ParseException {
+        LangParser parser = new LangParser(ATTRIBUTE_NAME, "#rng 2012-01-01T00:00:00Z 2012-12-31T23:59:59Z");
+        Constraint<?> constraint = parser.parse();
+        assertEquals(DateRange.class, constraint.getAttributeValue().getType());
+        DateRange range = (DateRange) constraint.getAttributeValue().getValue();
+        assertEquals(1325376000000L, range.getStartMillis());
+        assertEquals(1356998399000L, range.getEndMillis());
+    }
+    
+    @Test
+    public void testFailInvalidDateTime() {
+        assertEquals(ParseError.INVALID_DATE_TIME, LangParser.tryParse(ATTRIBUTE_NAME, "#lt 2013-02-29").getError());
+        assertEquals(ParseError.INVALID_DATE_TIME, LangParser.tryParse(ATTRIBUTE_NAME, "#lt 2013-13-01").getError());
+        assertEquals(ParseError.INVALID_DATE_TIME, LangParser.tryParse(ATTRIBUTE_NAME, "#lt 24:00:00").getError());
+        assertEquals(ParseError.UNEXPECTED_END_OF_INPUT, LangParser.tryParse(ATTRIBUTE_NAME, "#lt 2013-01-01T10:00").getError());
+        assertEquals(ParseError.TYPE_MISMATCH, LangParser.tryParse(ATTRIBUTE_NAME, "#rng 2013-01-01 10").getError());
+        assertEquals(ParseError.INVALID_DATE_TIME, LangParser.tryParse(ATTRIBUTE_NAME, "#ge 12345-01-01").getError());
+        assertEquals(ParseError.INVALID_DATE_TIME, LangParser.tryParse(ATTRIBUTE_NAME, "#ge 999999999-01-01").getError());
+        assertEquals(ParseError.INVALID_DATE_TIME, LangParser.tryParse(ATTRIBUTE_NAME, "#eq 2012-02-30").getError());
+        assertEquals(ParseError.INVALID_DATE_TIME, LangParser.tryParse(ATTRIBUTE_NAME, "#eq 25:00:00").getError());
+        assertEquals("555-1234", LangParser.tryParse(ATTRIBUTE_NAME, "#eq 555-1234").getConstraint().getAttributeValue().getValue());
+    }
+    
+    @Test
+    public void testParseExactLong() throws ParseException {
+        LangParser parser = new LangParser(ATTRIBUTE_NAME, "#eq 9007199254740993");
+        Constraint<?> constraint = parser.parse();
+        assertEquals(Long.class, constraint.getAttributeValue().getType());
+        assertEquals(9007199254740993L, constraint.getAttributeValue().getValue());
+
+        parser = new LangParser(ATTRIBUTE_NAME, "#ge -9223372036854775808");
+        constraint = parser.parse();
+        assertEquals(Long.MIN_VALUE, constraint.getAttributeValue().getValue());
+
+        parser = new LangParser(ATTRIBUTE_NAME, "#le 9223372036854775807");
+        constraint = parser.parse();
+        assertEquals(Long.MAX_VALUE, constraint.getAttributeValue().getValue());
+
+        assertEquals(ParseError.NUMBER_OUT_OF_RANGE, LangParser.tryParse(ATTRIBUTE_NAME, "#le 9223372036854775808").getError());
+        assertEquals(ParseError.NUMBER_OUT_OF_RANGE, LangParser.tryParse(ATTRIBUTE_NAME, "#le -9223372036854775809").getError());
+    }
+    
+    @Test
+    public void testParseDouble() throws ParseException {
+        LangParser parser = new LangParser(ATTRIBUTE_NAME, "#lt -4.25");
+        Constraint<?> constraint = parser.parse();
+        assertEquals(Double.class, constraint.getAttributeValue().getType());
+        assertEquals(-4.25, constraint.getAttributeValue().getValue());
+
+        parser = new LangParser(ATTRIBUTE_NAME, "#eq 1.5e3");
+        constraint = parser.parse();
+        assertEquals(Double.class, constraint.getAttributeValue().getType());
+        assertEquals(1500.0, constraint.getAttributeValue().getValue());
+
+        parser = new LangParser(ATTRIBUTE_NAME, "#eq 1.5e");
+        constraint = parser.parse();
+        assertEquals(String.class, constraint.getAttributeValue().getType());
+
+        assertEquals(ParseError.NUMBER_EXPECTED, LangParser.tryParse(ATTRIBUTE_NAME, "#lt 1.").getError());
+        assertEquals(ParseError.NUMBER_OUT_OF_RANGE, LangParser.tryParse(ATTRIBUTE_NAME, "#lt 1e999").getError());
+    }
+    
+    @Test
+    public void testParseNegativeExponent() throws ParseException {
+        assertEquals(1.5e-3, LangParser.parse(ATTRIBUTE_NAME, "#lt 1.5e-3").getAttributeValue().getValue());
+        assertEquals(1.5e-3, LangParser.parse(ATTRIBUTE_NAME, "#lt 1.5E-3").getAttributeValue().getValue());
+        assertEquals(-2e-10, LangParser.parse(ATTRIBUTE_NAME, "#gt -2e-10").getAttributeValue().getValue());
+
+        Constraint<?> constraint = LangParser.parse(ATTRIBUTE_NAME, "#rng 1e-3 2");
+        assertEquals(new DoubleRange(1e-3, 2), constraint.getAttributeValue().getValue());
+
+        constraint = LangParser.parse(ATTRIBUTE_NAME, "#eq 1.5e-3");
+        assertEquals(Double.class, constraint.getAttributeValue().getType());
+        assertEquals(1.5e-3, constraint.getAttributeValue().getValue());
+    }
+    
+    @Test
+    public void testParseDoubleRNG() throws ParseException {
+        LangParser parser = new LangParser(ATTRIBUTE_NAME, "#rng 10 20.5");
+        Constraint<?> constraint = parser.parse();
+        assertEquals(DoubleRange.class, constraint.getAttributeValue().getType());
+        assertEquals(new DoubleRange(10, 20.5), constraint.getAttributeValue().getValue());
+
+        parser = new LangParser(ATTRIBUTE_NAME, "#rng -0.5 1");
+        constraint = parser.parse();
+        assertEquals(-0.5, ((DoubleRange)(constraint.getAttributeValue().getValue())).getStart());
+        assertEquals(1.0, ((DoubleRange)(constraint.getAttributeValue().getValue())).getEnd());
+    }
+    
+    @Test
+    public void testParseByteBuffer() throws ParseException {
+        byte[] bytes = "xx#eq '\u010dau sv\u011bte'yy".getBytes(Charset.forName("UTF-8"));
+        ByteBuffer heap = ByteBuffer.wrap(bytes, 2, bytes.length - 4);
+        Constraint<?> constraint = LangParser.parse(ATTRIBUTE_NAME, heap);
+        assertEquals("\u010dau sv\u011bte", constraint.getAttributeValue().getValue());
+        assertEquals(2, heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        direct.put("#rng 10 20 #lt \u010d".getBytes(Charset.forName("UTF-8")));
+        direct.flip().limit(10);
+        constraint = LangParser.parse(ATTRIBUTE_NAME, direct);
+        assertEquals(Operator.RANGE, constraint.getOperator());
+        assertEquals(20L, ((LongRange)(constraint.getAttributeValue().getValue())).getEnd().longValue());
+
+        direct.limit(17).position(11);
+        ParseResult result = LangParser.tryParse(ATTRIBUTE_NAME, direct);
+        assertEquals(ParseError.NUMBER_EXPECTED, result.getError());
+        assertEquals(15, result.getErrorPosition());
+    }
+    
+    @Test
+    public void testParseIN() throws ParseException {
+        Constraint<?> constraint = LangParser.parse(ATTRIBUTE_NAME, "#in 404 200 -1 404 500");
+        assertEquals(Operator.EQUALS, constraint.getOperator());
+        assertEquals(LongSet.class, constraint.getAttributeValue().getType());
+        LongSet longs = (LongSet) constraint.getAttributeValue().getValue();
+        assertEquals(4, longs.size());
+        assertEquals(-1L, longs.get(0));
+        assertTrue(longs.contains(404));
+        assertFalse(longs.contains(403));
+        assertEquals(LongSet.of(-1, 200, 404, 500), longs);
+
+        constraint = LangParser.parse(ATTRIBUTE_NAME, "#in 'b c' 'a' 'b c'");
+        StringSet strings = (StringSet) constraint.getAttributeValue().getValue();
+        assertEquals(2, strings.size());
+        assertTrue(strings.contains("b c"));
+        assertFalse(strings.contains("b"));
+
+        AttributeSchema schema = new AttributeSchema().register("host", AttributeType.STRING);
+        strings = (StringSet) LangParser.parse(schema, "host", "#in a.cz 'b.cz'", 0, 15).getAttributeValue().getValue();
+        assertEquals(StringSet.of("a.cz", "b.cz"), strings);
+    }
+    
+    @Test
+    public void testFailIN() {
+        assertEquals(ParseError.MISSING_ARGUMENT, LangParser.tryParse(ATTRIBUTE_NAME, "#in").getError());
+        assertEquals(ParseError.MISSING_ARGUMENT, LangParser.tryParse(ATTRIBUTE_NAME, "#in 1 ").getError());
+        assertEquals(ParseError.SPACE_EXPECTED, LangParser.tryParse(ATTRIBUTE_NAME, "#in 1  2").getError());
+        assertEquals(ParseError.TYPE_MISMATCH, LangParser.tryParse(ATTRIBUTE_NAME, "#in 1 2.5").getError());
+        assertEquals(ParseError.TYPE_MISMATCH, LangParser.tryParse(ATTRIBUTE_NAME, "#in 'a' b").getError());
+        assertEquals(8, LangParser.tryParse(ATTRIBUTE_NAME, "#in 'a' b").getErrorPosition());
+        assertEquals(ParseError.NUMBER_EXPECTED, LangParser.tryParse(ATTRIBUTE_NAME, "#in 1 'a'").getError());
+        assertEquals(ParseError.CLOSING_QUOTE_EXPECTED, LangParser.tryParse(ATTRIBUTE_NAME, "#in 'a' 'b").getError());
+    }
+    
+    @Test
+    public void testParseSUFF() throws ParseException {
+        Constraint<?> constraint = LangParser.parse(ATTRIBUTE_NAME, "#suff .muni.cz");
+        assertEquals(Operator.PREFIX, constraint.getOperator());
+        Suffix suffix = (Suffix) constraint.getAttributeValue().getValue();
+        assertEquals(".muni.cz", suffix.getValue());
+        assertEquals("zc.inum.", suffix.getReversed());
+        assertTrue(suffix.matches("www.fi.muni.cz"));
+        assertFalse(suffix.matches("muni.cz"));
+
+        assertEquals(ParseError.UNEXPECTED_SPACE, LangParser.tryParse(ATTRIBUTE_NAME, "#suff a b").getError());
+    }
+    
+    @Test
+    public void testParseCONTAINS() throws ParseException {
+        Constraint<?> constraint = LangParser.parse(ATTRIBUTE_NAME, "#contains 'disk full'");
+        Substring substring = (Substring) constraint.getAttributeValue().getValue();
+        assertEquals("disk full", substring.getValue());
+        assertEquals(6, substring.indexIn("error disk full on /var"));
+        assertTrue(substring.matches("disk full"));
+        assertFalse(substring.matches("disk ful"));
+        assertFalse(substring.matches("disk fill, disk fall"));
+        assertEquals(3, new Substring("\u010d").indexIn("abc\u010d"));
+        assertEquals(-1, new Substring("\u010d").indexIn("abc\u020d"));
+        assertEquals(0, new Substring("").indexIn("abc"));
+    }
+    
+    @Test
+    public void testParseLongArguments() throws ParseException {
+        StringBuilder template = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            template.append("word").append(i % 10).append(' ');
+        }
+        String value = template.toString().trim();
+        String quoted = "#eq '" + value + "'";
+        String token = "#pref " + value.replace(' ', '_');
+
+        assertEquals(value, LangParser.parse(ATTRIBUTE_NAME, quoted).getAttributeValue().getValue());
+        assertEquals(value, LangParser.parse(ATTRIBUTE_NAME, new StringBuilder(quoted)).getAttributeValue().getValue());
+        assertEquals(value.replace(' ', '_'), LangParser.parse(ATTRIBUTE_NAME, token).getAttributeValue().getValue());
+
+        byte[] bytes = quoted.getBytes(Charset.forName("UTF-8"));
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            for (int offset = 0; offset < 8; offset++) {
+                ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + offset).order(order);
+                direct.position(offset);
+                direct.put(bytes).position(offset);
+                assertEquals(value, LangParser.parse(ATTRIBUTE_NAME, direct).getAttributeValue().getValue());
+
+                direct.limit(direct.limit() - 1);
+                ParseResult result = LangParser.tryParse(ATTRIBUTE_NAME, direct);
+                assertEquals(ParseError.CLOSING_QUOTE_EXPECTED, result.getError());
+                assertEquals(offset + bytes.length - 1, result.getErrorPosition());
+            }
+        }
+
+        ParseResult result = LangParser.tryParse(ATTRIBUTE_NAME, quoted, 0, quoted.length() - 1);
+        assertEquals(ParseError.CLOSING_QUOTE_EXPECTED, result.getError());
+        assertEquals(quoted.length() - 1, result.getErrorPosition());
+        result = LangParser.tryParse(ATTRIBUTE_NAME, "#pref a b", 0, 7);
+        assertEquals("a", result.getConstraint().getAttributeValue().getValue());
+    }
 }
@@ -0,0 +1,99 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.text.ParseException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class OperatorRegistryTestCase {
+
+    private static final String ATTRIBUTE_NAME = "attribute";
+
+    @Test
+    public void testBuiltIns() {
+        OperatorRegistry registry = OperatorRegistry.getDefault();
+        assertEquals(Operator.RANGE, registry.get("#rng").getOperator());
+        assertEquals(ArgumentSyntax.STRING, registry.get("#pref").getSyntax());
+        assertNull(registry.get("#r"));
+        assertNull(registry.get("#rngx"));
+        assertNull(registry.get(""));
+    }
+
+    @Test
+    public void testRegister() throws ParseException {
+        OperatorRegistry registry = OperatorRegistry.getDefault();
+        assertEquals(ParseError.UNSUPPORTED_OPERATOR, LangParser.tryParse(ATTRIBUTE_NAME, "#is x").getError());
+
+        registry.register("#is", Operator.EQUALS, ArgumentSyntax.STRING);
+        try {
+            Constraint<?> constraint = LangParser.parse(ATTRIBUTE_NAME, "#is 42");
+            assertEquals(Operator.EQUALS, constraint.getOperator());
+            assertEquals("42", constraint.getAttributeValue().getValue());
+            assertEquals(ParseError.UNEXPECTED_SPACE, LangParser.tryParse(ATTRIBUTE_NAME, "#is 4 2").getError());
+            assertEquals(Operator.LESS_THAN, LangParser.parse(ATTRIBUTE_NAME, "#lt 42").getOperator());
+        } finally {
+            assertTrue(registry.unregister("#is"));
+        }
+
+        assertEquals(ParseError.UNSUPPORTED_OPERATOR, LangParser.tryParse(ATTRIBUTE_NAME, "#is x").getError());
+        assertFalse(registry.unregister("#is"));
+    }
+
+    @Test
+    public void testRegisterNonNative() throws ParseException {
+        OperatorRegistry registry = OperatorRegistry.getDefault();
+        registry.register("#ne", Operator.EQUALS, ArgumentSyntax.ANY, false);
+        try {
+            ParseResult result = LangParser.tryParse(ATTRIBUTE_NAME, "#ne 5");
+            OperatorDefinition ne = result.getOperatorDefinition();
+            assertEquals("#ne", ne.getName());
+            assertFalse(ne.isNative());
+            assertFalse(ne.isBuiltIn());
+            assertEquals(5L, result.getConstraint().getAttributeValue().getValue());
+
+            try {
+                ConstraintPredicate.compile(result.getConstraint(), ne);
+                fail("#ne compiled as an equality");
+            } catch (IllegalArgumentException e) {
+                //expected, nothing knows what #ne means
+            }
+
+            ConstraintCanonicalizer canonicalizer = new ConstraintCanonicalizer();
+            Constraint<?> canonical = canonicalizer.parse(ATTRIBUTE_NAME, "#ne 5");
+            assertNotSame(canonical, canonicalizer.parse(ATTRIBUTE_NAME, "#eq 5"));
+            assertSame(canonical, canonicalizer.parse(ATTRIBUTE_NAME, "#ne 5"));
+            assertEquals(2, canonicalizer.size());
+
+            assertNull(registry.get("#is"));
+            registry.register("#is", Operator.EQUALS, ArgumentSyntax.ANY);
+            assertTrue(registry.get("#is").isNative());
+            assertTrue(ConstraintPredicate.compile(LangParser.parse(ATTRIBUTE_NAME, "#is 5"), registry.get("#is")).test(5L));
+        } finally {
+            registry.unregister("#ne");
+            registry.unregister("#is");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFailRegisterTwice() {
+        OperatorRegistry.getDefault().register("#eq", Operator.EQUALS, ArgumentSyntax.ANY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFailRegisterSpace() {
+        OperatorRegistry.getDefault().register("#n e", Operator.EQUALS, ArgumentSyntax.ANY);
+    }
+
+    @Test
+    public void testFailUnregisterBuiltIn() {
+        try {
+            OperatorRegistry.getDefault().unregister("#lt");
+            fail();
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+        assertTrue(OperatorRegistry.getDefault().get("#lt").isBuiltIn());
+        assertEquals(ParseError.MISSING_ARGUMENT, LangParser.tryParse(ATTRIBUTE_NAME, "#lt").getError());
+    }
+}
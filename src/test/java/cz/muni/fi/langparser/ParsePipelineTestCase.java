@@ -0,0 +1,226 @@
+package cz.muni.fi.langparser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ParsePipelineTestCase {
+
+    @Test
+    public void testParseAll() throws InterruptedException {
+        final List<PipelineRequest> results = Collections.synchronizedList(new ArrayList<PipelineRequest>());
+        ParsePipeline pipeline = new ParsePipeline(64, 3, 16, new ParseBatchHandler() {
+            @Override
+            public void onBatch(List<PipelineRequest> batch) {
+                assertTrue(batch.size() <= 16);
+                results.addAll(batch);
+            }
+        });
+
+        for (int i = 0; i < 1000; i++) {
+            pipeline.submit("attribute", (i % 10 == 0) ? "#lt x" : "#lt " + i, i);
+        }
+        pipeline.shutdown();
+        assertTrue(pipeline.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, results.size());
+        assertEquals(1000, pipeline.getParsedCount());
+        assertEquals(0, pipeline.getQueueDepth());
+        assertTrue(pipeline.getMaxLatencyNanos() >= pipeline.getMeanLatencyNanos());
+        int failed = 0;
+        for (PipelineRequest request : results) {
+            int i = (Integer) request.getTag();
+            if (request.getResult().isSuccess()) {
+                assertEquals((long) i, request.getResult().getConstraint().getAttributeValue().getValue());
+            } else {
+                assertEquals(0, i % 10);
+                failed++;
+            }
+        }
+        assertEquals(100, failed);
+    }
+
+    @Test
+    public void testBackpressure() throws InterruptedException {
+        final CountDownLatch taken = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ParsePipeline pipeline = new ParsePipeline(2, 1, 1, new ParseBatchHandler() {
+            @Override
+            public void onBatch(List<PipelineRequest> batch) {
+                taken.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        assertTrue(pipeline.offer("attribute", "#lt 1", null));
+        assertTrue(taken.await(10, TimeUnit.SECONDS)); //the worker is stuck in the handler
+        assertTrue(pipeline.offer("attribute", "#lt 2", null));
+        assertTrue(pipeline.offer("attribute", "#lt 3", null));
+        assertFalse(pipeline.offer("attribute", "#lt 4", null));
+        assertFalse(pipeline.offer("attribute", "#lt 4", null, 10, TimeUnit.MILLISECONDS));
+        assertEquals(2, pipeline.getQueueDepth());
+        assertEquals(2, pipeline.getRejectedCount());
+
+        release.countDown();
+        pipeline.shutdown();
+        assertTrue(pipeline.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(3, pipeline.getParsedCount());
+        assertEquals(3, pipeline.getBatchCount());
+    }
+
+    @Test
+    public void testExpressionCopied() throws InterruptedException {
+        final List<PipelineRequest> results = Collections.synchronizedList(new ArrayList<PipelineRequest>());
+        ParsePipeline pipeline = new ParsePipeline(64, 1, 16, new ParseBatchHandler() {
+            @Override
+            public void onBatch(List<PipelineRequest> batch) {
+                results.addAll(batch);
+            }
+        });
+
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            buffer.setLength(0);
+            buffer.append("#lt ").append(i);
+            pipeline.submit("attribute", buffer, i);
+        }
+        buffer.setLength(0);
+        pipeline.shutdown();
+        assertTrue(pipeline.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, results.size());
+        for (PipelineRequest request : results) {
+            assertEquals((long) (Integer) request.getTag(), request.getResult().getConstraint().getAttributeValue().getValue());
+            assertNull(request.getFailure());
+        }
+        assertEquals(0, pipeline.getFailedRequestCount());
+    }
+
+    @Test
+    public void testHandlerFailure() throws InterruptedException {
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final List<PipelineRequest> results = Collections.synchronizedList(new ArrayList<PipelineRequest>());
+        ParsePipeline pipeline = new ParsePipeline(64, 2, 1, new ParseBatchHandler() {
+            @Override
+            public void onBatch(List<PipelineRequest> batch) {
+                if (batch.get(0).getTag() != null) {
+                    throw new IllegalStateException("Handler failed");
+                }
+                results.addAll(batch);
+            }
+        }, new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread t, Throwable e) {
+                failures.add(e);
+            }
+        });
+
+        pipeline.submit("attribute", "#lt 1", "fail");
+        pipeline.submit("attribute", "#lt 2", "fail");
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit("attribute", "#lt 3", null);
+        }
+        pipeline.shutdown();
+        assertTrue(pipeline.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(10, results.size()); //the workers survived
+        assertEquals(2, pipeline.getFailedBatchCount());
+        assertEquals(2, failures.size());
+        assertEquals("Handler failed", failures.get(0).getMessage());
+    }
+
+    @Test
+    public void testShutdownKeepsAccepted() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            final AtomicInteger handled = new AtomicInteger();
+            final AtomicInteger accepted = new AtomicInteger();
+            final ParsePipeline pipeline = new ParsePipeline(8, 2, 4, new ParseBatchHandler() {
+                @Override
+                public void onBatch(List<PipelineRequest> batch) {
+                    handled.addAndGet(batch.size());
+                }
+            });
+
+            Thread[] submitters = new Thread[4];
+            for (int i = 0; i < submitters.length; i++) {
+                submitters[i] = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            while (true) {
+                                pipeline.submit("attribute", "#lt 1", null);
+                                accepted.incrementAndGet();
+                            }
+                        } catch (IllegalStateException | InterruptedException e) {
+                            //shut down
+                        }
+                    }
+                };
+                submitters[i].start();
+            }
+            Thread.sleep(2);
+            pipeline.shutdown();
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+
+            assertTrue(pipeline.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(accepted.get(), handled.get());
+        }
+    }
+
+    @Test
+    public void testShutdownIdle() throws InterruptedException {
+        ParsePipeline pipeline = new ParsePipeline(1, 4, 8, new ParseBatchHandler() {
+            @Override
+            public void onBatch(List<PipelineRequest> batch) {
+            }
+        });
+        pipeline.shutdown();
+        pipeline.shutdown();
+        assertTrue(pipeline.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailNull() {
+        ParsePipeline pipeline = new ParsePipeline(4, 1, 1, new ParseBatchHandler() {
+            @Override
+            public void onBatch(List<PipelineRequest> batch) {
+            }
+        });
+        try {
+            pipeline.offer(null, "#lt 1", null);
+            fail("Null attribute name accepted");
+        } catch (NullPointerException e) {
+            //expected
+        }
+        try {
+            pipeline.submit("attribute", null, null);
+            fail("Null expression accepted");
+        } catch (NullPointerException | InterruptedException e) {
+            assertTrue(e instanceof NullPointerException);
+        }
+        assertEquals(0, pipeline.getQueueDepth());
+        pipeline.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailSubmitAfterShutdown() {
+        ParsePipeline pipeline = new ParsePipeline(1, 1, 1, new ParseBatchHandler() {
+            @Override
+            public void onBatch(List<PipelineRequest> batch) {
+            }
+        });
+        pipeline.shutdown();
+        pipeline.offer("attribute", "#lt 1", null);
+    }
+}
@@ -0,0 +1,71 @@
+package cz.muni.fi.langparser;
+
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ParserMetricsTestCase {
+
+    private static final String ATTRIBUTE_NAME = "attribute";
+
+    @Test
+    public void testSnapshot() throws ParseException {
+        ParserMetrics metrics = new ParserMetrics();
+        LangParser.setMetrics(metrics);
+        try {
+            LangParser.parse(ATTRIBUTE_NAME, "#lt 42");
+            LangParser.parse(ATTRIBUTE_NAME, "#lt -42");
+            LangParser.parse(ATTRIBUTE_NAME, "#pref abc");
+            LangParser.parse(ATTRIBUTE_NAME, "#in 1 2");
+            LangParser.parse(ATTRIBUTE_NAME, "#contains abc");
+            LangParser.parse(ATTRIBUTE_NAME, "#suff abc");
+            LangParser.tryParse(ATTRIBUTE_NAME, "#lt blabla");
+            LangParser.tryParse(ATTRIBUTE_NAME, "#pre abc");
+        } finally {
+            LangParser.setMetrics(null);
+        }
+        LangParser.parse(ATTRIBUTE_NAME, "#lt 42"); //not recorded anymore
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(6, snapshot.getSuccessCount());
+        assertEquals(2, snapshot.getCount("#lt"));
+        assertEquals(1, snapshot.getCount("#pref"));
+        assertEquals(0, snapshot.getCount("#eq"));
+        assertEquals(1, snapshot.getCount("#in"));
+        assertEquals(1, snapshot.getCount("#contains"));
+        assertEquals(1, snapshot.getCount("#suff"));
+        assertEquals(Long.valueOf(0), snapshot.getOperatorCounts().get("#ge"));
+        assertEquals(2, snapshot.getFailureCount());
+        assertEquals(1, snapshot.getFailureCount(ParseError.NUMBER_EXPECTED));
+        assertEquals(1, snapshot.getFailureCount(ParseError.UNSUPPORTED_OPERATOR));
+
+        long latencies = 0;
+        for (long count : snapshot.getLatencyHistogram()) {
+            latencies += count;
+        }
+        assertEquals(8, latencies);
+        assertEquals(3, snapshot.getInputLengthHistogram()[3]); //"#lt 42", "#lt -42" and "#in 1 2" are 4 to 7 chars long
+    }
+
+    @Test
+    public void testMBean() throws JMException, ParseException {
+        ParserMetrics metrics = new ParserMetrics();
+        ObjectName name = metrics.register();
+        LangParser.setMetrics(metrics);
+        try {
+            LangParser.parse(ATTRIBUTE_NAME, "#eq 42");
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "SuccessCount"));
+            assertEquals(0L, server.getAttribute(name, "FailureCount"));
+            assertEquals(Long.valueOf(1), metrics.getOperatorCounts().get("#eq"));
+        } finally {
+            LangParser.setMetrics(null);
+            metrics.unregister();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.LongRange;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class SnapshotTestCase {
+
+    private static final String[] EXPRESSIONS = {
+        "#lt 42", "#ge -9223372036854775808", "#eq 'quoted String \u010d'", "#pref cz.muni.",
+        "#le 2.5", "#rng 10 20", "#rng 1 2.5", "#gt 2012-01-15T10:20:30Z", "#lt 08:30:00",
+        "#rng 2012-01-01 2012-12-31", "#rng 08:00:00 16:00:00", "#in 3 1 2", "#in 'a' 'b'",
+        "#suff .log", "#contains 'disk full'"
+    };
+
+    private List<Constraint<?>> parseAll() throws ParseException {
+        List<Constraint<?>> constraints = new ArrayList<>();
+        for (int i = 0; i < EXPRESSIONS.length; i++) {
+            constraints.add(LangParser.parse("attribute" + (i % 3), EXPRESSIONS[i]));
+        }
+        return constraints;
+    }
+
+    private static byte[] write(List<Constraint<?>> constraints) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotWriter.write(constraints, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Rewrites the version and fixes the checksum up.
+     */
+    private static byte[] withVersion(byte[] snapshot, int version) {
+        ByteBuffer buffer = ByteBuffer.wrap(snapshot.clone());
+        buffer.putInt(4, version);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, snapshot.length - SnapshotFormat.TRAILER_LENGTH);
+        buffer.putLong(snapshot.length - SnapshotFormat.TRAILER_LENGTH, crc.getValue());
+        return buffer.array();
+    }
+
+    private static Object valueOf(Constraint<?> constraint) {
+        Object value = constraint.getAttributeValue().getValue();
+        if (value instanceof LongRange) {
+            return ((LongRange) value).getStart() + ".." + ((LongRange) value).getEnd();
+        }
+        return value;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException, ParseException {
+        List<Constraint<?>> constraints = parseAll();
+        File file = File.createTempFile("snapshot", ".bin");
+        file.deleteOnExit();
+
+        SnapshotWriter.write(constraints, file);
+        List<Constraint<?>> restored = SnapshotReader.read(file);
+
+        assertEquals(constraints.size(), restored.size());
+        for (int i = 0; i < constraints.size(); i++) {
+            assertEquals(constraints.get(i).getAttributeName(), restored.get(i).getAttributeName());
+            assertEquals(constraints.get(i).getOperator(), restored.get(i).getOperator());
+            assertEquals(constraints.get(i).getAttributeValue().getType(), restored.get(i).getAttributeValue().getType());
+            assertEquals(valueOf(constraints.get(i)), valueOf(restored.get(i)));
+        }
+    }
+
+    @Test
+    public void testFailCorrupted() throws IOException, ParseException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotWriter.write(parseAll(), out);
+        byte[] bytes = out.toByteArray();
+
+        for (int i : new int[] {0, 5, bytes.length / 2, bytes.length - 1}) {
+            byte[] corrupted = bytes.clone();
+            corrupted[i] ^= 0x10;
+            try {
+                SnapshotReader.read(ByteBuffer.wrap(corrupted));
+                fail("Corruption at " + i + " not detected");
+            } catch (CorruptSnapshotException e) {
+                //expected
+            }
+        }
+
+        try {
+            SnapshotReader.read(ByteBuffer.wrap(bytes, 0, bytes.length - 3));
+            fail("Truncation not detected");
+        } catch (CorruptSnapshotException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testVersions() throws IOException, ParseException {
+        List<Constraint<?>> lessThan = Collections.<Constraint<?>>singletonList(LangParser.parse("attribute", "#lt 42"));
+        assertEquals(1, SnapshotReader.read(ByteBuffer.wrap(withVersion(write(lessThan), 1))).size());
+
+        for (int version : new int[] {0, SnapshotFormat.VERSION + 1}) {
+            try {
+                SnapshotReader.read(ByteBuffer.wrap(withVersion(write(lessThan), version)));
+                fail("Version " + version + " accepted");
+            } catch (CorruptSnapshotException e) {
+                //expected
+            }
+        }
+
+        List<Constraint<?>> in = Collections.<Constraint<?>>singletonList(LangParser.parse("attribute", "#in 1 2"));
+        try {
+            SnapshotReader.read(ByteBuffer.wrap(withVersion(write(in), 1)));
+            fail("Sets did not exist in version 1");
+        } catch (CorruptSnapshotException e) {
+            //expected
+        }
+        assertEquals(1, SnapshotReader.read(ByteBuffer.wrap(withVersion(write(in), 2))).size());
+
+        List<Constraint<?>> suff = Collections.<Constraint<?>>singletonList(LangParser.parse("attribute", "#suff .log"));
+        try {
+            SnapshotReader.read(ByteBuffer.wrap(withVersion(write(suff), 2)));
+            fail("Suffixes did not exist in version 2");
+        } catch (CorruptSnapshotException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testByteOrder() throws IOException, ParseException {
+        ByteBuffer buffer = ByteBuffer.wrap(write(parseAll())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(EXPRESSIONS.length, SnapshotReader.read(buffer).size());
+    }
+}
@@ -0,0 +1,51 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class SubscriptionDocumentTestCase {
+
+    @Test
+    public void testUpdate() {
+        SubscriptionDocument document = new SubscriptionDocument();
+        DocumentDelta delta = document.update("level\t#eq ERROR\npriority\t#lt 3\r\n\nsource\t#pref cz.\n");
+        assertEquals(3, delta.getAdded().size());
+        assertTrue(delta.getRemoved().isEmpty());
+        assertTrue(delta.getUnchanged().isEmpty());
+        Constraint<?> level = delta.getAdded().get(0);
+        Constraint<?> priority = delta.getAdded().get(1);
+
+        delta = document.update("level\t#eq ERROR\npriority\t#lt 4\nsource\t#pref cz.");
+        assertEquals(1, delta.getAdded().size());
+        assertEquals(4L, delta.getAdded().get(0).getAttributeValue().getValue());
+        assertEquals(1, delta.getRemoved().size());
+        assertSame(priority, delta.getRemoved().get(0));
+        assertEquals(2, delta.getUnchanged().size());
+        assertSame(level, delta.getUnchanged().get(0));
+        assertEquals(3, document.size());
+
+        delta = document.update("level\t#eq ERROR\npriority\t#lt 4\nsource\t#pref cz.");
+        assertFalse(delta.hasChanges());
+    }
+
+    @Test
+    public void testErrors() {
+        SubscriptionDocument document = new SubscriptionDocument();
+        document.update("level\t#eq ERROR\npriority\t#lt 3");
+
+        DocumentDelta delta = document.update("level\t#eq ERROR\npriority\t#lt x\nno tab\nlevel\t#eq ERROR");
+        assertEquals(2, delta.getErrors().size());
+        assertEquals(13, delta.getErrors().get(2).getException().getErrorOffset());
+        assertEquals("priority\t#lt x", delta.getErrors().get(2).getLine());
+        assertEquals(3, delta.getErrors().get(3).getLineNumber());
+        assertEquals("no tab", delta.getErrors().get(3).getLine());
+        assertEquals(6, delta.getErrors().get(3).getException().getErrorOffset());
+        assertEquals(1, delta.getRemoved().size());
+        assertEquals(1, delta.getUnchanged().size());
+        assertEquals(1, document.size());
+
+        document.clear();
+        assertEquals(1, document.update("level\t#eq ERROR").getAdded().size());
+    }
+}
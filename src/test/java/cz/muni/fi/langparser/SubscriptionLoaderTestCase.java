@@ -0,0 +1,91 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Constraint;
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class SubscriptionLoaderTestCase {
+
+    private static final String INPUT = "level\t#eq ERROR\r\n"
+            + "\n"
+            + "priority\t#ge 3\n"
+            + "broken #lt 5\n"
+            + "source\t#pref 'cz.muni. \u010d'\n"
+            + "count\t#lt blabla";
+
+    private static class CollectingHandler implements SubscriptionHandler {
+
+        private final List<Constraint<?>> constraints = new ArrayList<>();
+        private final List<Long> constraintLines = new ArrayList<>();
+        private final List<Long> errorLines = new ArrayList<>();
+        private final List<Integer> errorColumns = new ArrayList<>();
+
+        @Override
+        public void onConstraint(long lineNumber, Constraint<?> constraint) {
+            constraintLines.add(lineNumber);
+            constraints.add(constraint);
+        }
+
+        @Override
+        public void onError(long lineNumber, int column, String message) {
+            errorLines.add(lineNumber);
+            errorColumns.add(column);
+        }
+    }
+
+    private void check(CollectingHandler handler) {
+        assertEquals(3, handler.constraints.size());
+        assertEquals(Long.valueOf(1), handler.constraintLines.get(0));
+        assertEquals("level", handler.constraints.get(0).getAttributeName());
+        assertEquals("ERROR", handler.constraints.get(0).getAttributeValue().getValue());
+        assertEquals(Long.valueOf(3), handler.constraintLines.get(1));
+        assertEquals(Operator.GREATER_THAN_OR_EQUAL_TO, handler.constraints.get(1).getOperator());
+        assertEquals(Long.valueOf(5), handler.constraintLines.get(2));
+        assertEquals("cz.muni. \u010d", handler.constraints.get(2).getAttributeValue().getValue());
+
+        assertEquals(2, handler.errorLines.size());
+        assertEquals(Long.valueOf(4), handler.errorLines.get(0));
+        assertEquals(Long.valueOf(6), handler.errorLines.get(1));
+        assertTrue(handler.errorColumns.get(1) >= "count\t#lt ".length());
+    }
+
+    @Test
+    public void testLoadReader() throws IOException {
+        CollectingHandler handler = new CollectingHandler();
+        new SubscriptionLoader(handler).load(new StringReader(INPUT));
+        check(handler);
+    }
+
+    @Test
+    public void testLoadInputStream() throws IOException {
+        CollectingHandler handler = new CollectingHandler();
+        new SubscriptionLoader(handler).load(new ByteArrayInputStream(INPUT.getBytes("UTF-8")));
+        check(handler);
+    }
+
+    @Test
+    public void testLoadFileChannel() throws IOException {
+        File file = File.createTempFile("subscriptions", ".txt");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(INPUT.getBytes("UTF-8"));
+        }
+
+        CollectingHandler handler = new CollectingHandler();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            new SubscriptionLoader(handler).load(channel);
+        }
+        check(handler);
+    }
+}
@@ -0,0 +1,63 @@
+package cz.muni.fi.langparser;
+
+import cz.muni.fi.publishsubscribe.countingtree.Operator;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ValidationResultTestCase {
+
+    private static final String[] EXPRESSIONS = {
+        "#lt 42", "#le -5", "#gt 1.5e3", "#ge 2013-01-01", "#eq ERROR", "#eq 'a b'", "#eq 12:00:00",
+        "#rng 10 20", "#rng 1 2.5", "#rng 2013-01-01 2013-12-31T23:59:59Z", "#rng 08:00:00 17:00:00",
+        "#pref cz.", "#pref 'cz muni'", "#lt", "#lt  1", "#lt x", "#lt 1e999", "#lt 1.7e308", "#lt 1.8e308",
+        "#lt 0.00e999", "#rng 1 x", "#rng 1 12:00:00", "#eq 'open", "#pref a b", "#eq 1 2", "#foo 1",
+        "#lt 99999999999999999999", "#ge 2013-02-30", "#in 1 2 3", "#in 'a' 'b'", "#in 1 'a'", "#in 1 "
+    };
+
+    @Test
+    public void testSameAsParse() {
+        ValidationResult result = new ValidationResult();
+        for (String expression : EXPRESSIONS) {
+            ParseResult parsed = LangParser.tryParse("attribute", expression);
+            boolean valid = LangParser.validate(expression, 0, expression.length(), result);
+
+            assertEquals(expression, parsed.isSuccess(), valid);
+            assertEquals(expression, valid, result.isValid());
+            assertEquals(expression, parsed.getError(), result.getError());
+            assertEquals(expression, parsed.getErrorPosition(), result.getErrorPosition());
+            if (valid) {
+                assertEquals(expression, parsed.getConstraint().getOperator(), result.getOperator());
+            }
+        }
+    }
+
+    @Test
+    public void testArgumentSpans() {
+        ValidationResult result = new ValidationResult();
+        String input = "xx #rng 10 20.5";
+        assertTrue(LangParser.validate(input, 3, input.length(), result));
+        assertEquals(Operator.RANGE, result.getOperator());
+        assertEquals(2, result.getArgumentCount());
+        assertEquals("10", input.substring(result.getArgumentStart(0), result.getArgumentEnd(0)));
+        assertEquals("20.5", input.substring(result.getArgumentStart(1), result.getArgumentEnd(1)));
+
+        input = "#eq 'a b'";
+        assertTrue(LangParser.validate(input, 0, input.length(), result));
+        assertEquals(1, result.getArgumentCount());
+        assertEquals("'a b'", input.substring(result.getArgumentStart(0), result.getArgumentEnd(0)));
+
+        assertFalse(LangParser.validate("#eq", 0, 3, result));
+        assertEquals(ParseError.MISSING_ARGUMENT, result.getError());
+        assertNull(result.getOperator());
+        assertEquals(0, result.getArgumentCount());
+    }
+
+    @Test
+    public void testSchema() {
+        AttributeSchema schema = new AttributeSchema().register("level", AttributeType.STRING);
+        ValidationResult result = new ValidationResult();
+        assertFalse(LangParser.validate(schema, "level", "#lt 1", 0, 5, result));
+        assertEquals(ParseError.TYPE_MISMATCH, result.getError());
+        assertTrue(LangParser.validate(schema, "priority", "#lt 1", 0, 5, result));
+    }
+}